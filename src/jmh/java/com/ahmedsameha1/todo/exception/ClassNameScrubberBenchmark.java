@@ -0,0 +1,56 @@
+package com.ahmedsameha1.todo.exception;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.ahmedsameha1.todo.Constants.REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE;
+
+// legacy is what ResponseExceptionHandler did for every malformed request body before ClassNameScrubber
+// The long message is a body made to make the lookahead of the old check walk the whole message from every dot
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassNameScrubberBenchmark {
+    @Param({"jackson", "long"})
+    public String kind;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        if (kind.equals("jackson")) {
+            message = "Cannot deserialize instance of `com.ahmedsameha1.todo.domain_model.UserAccount`"
+                    + " out of START_ARRAY token\n at [Source: (PushbackInputStream); line: 1, column: 1]";
+        } else {
+            message = "Unexpected character: " + "a1.".repeat(20_000) + "1";
+        }
+    }
+
+    @Benchmark
+    public String scanner() {
+        return ClassNameScrubber.scrub(message);
+    }
+
+    @Benchmark
+    public String legacy() {
+        var message = this.message;
+        if (!message.matches(REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE)) {
+            Map<String, String> replacements = new HashMap<>();
+            Matcher matcher = Pattern.compile("[a-zA-Z_]\\w*(\\.[a-zA-Z_]\\w*)+").matcher(message);
+            while (matcher.find()) {
+                var fullClassName = message.substring(matcher.start(), matcher.end());
+                var simpleClassName = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
+                replacements.put(fullClassName, simpleClassName);
+            }
+            for (Map.Entry<String, String> entry : replacements.entrySet()) {
+                message = message.replace(entry.getKey(), entry.getValue());
+            }
+        }
+        return message;
+    }
+}
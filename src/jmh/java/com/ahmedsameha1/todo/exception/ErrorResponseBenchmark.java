@@ -0,0 +1,54 @@
+package com.ahmedsameha1.todo.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Run it with the gc profiler (it is enabled in build.gradle) to compare the allocation per error response
+// jackson is what the 401 of a bad sign in cost before the templates
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorResponseBenchmark {
+    private ObjectMapper objectMapper;
+    private ErrorMessages errorMessages;
+    private ErrorResponseTemplates errorResponseTemplates;
+
+    @Setup
+    public void setup() {
+        // The ObjectMapper of Spring Boot writes the dates as ISO-8601 strings
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        var messageSource = new StaticMessageSource();
+        messageSource.addMessage("error.badCredentialsProblem", Locale.ENGLISH,
+                "Username/password combination is wrong");
+        messageSource.addMessage("error.badCredentialsSuggestion", Locale.ENGLISH,
+                "Use a correct username/password combination");
+        errorMessages = new ErrorMessages(messageSource, List.of("en"));
+        errorResponseTemplates = new ErrorResponseTemplates(errorMessages, List.of("en"), List.of(
+                new ErrorResponseTemplates.Template("error.badCredentialsProblem",
+                        "error.badCredentialsSuggestion", (short) 0)));
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.badCredentialsProblem", Locale.ENGLISH));
+        errorResponse.setSuggestion(errorMessages.get("error.badCredentialsSuggestion", Locale.ENGLISH));
+        errorResponse.setPath("/sign_in");
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+
+    @Benchmark
+    public byte[] template() {
+        return errorResponseTemplates.body("error.badCredentialsProblem", Locale.ENGLISH, "/sign_in", Instant.now());
+    }
+}
@@ -0,0 +1,80 @@
+package com.ahmedsameha1.todo.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Run it with the gc profiler (it is enabled in build.gradle) to compare the allocation per request
+// legacy is what HttpMethodsFilter and UnsupportedRequestParameterHandlerInterceptor did per request
+// before PreDispatchInterceptor replaced them
+// A new HandlerMethod is created per invocation, as the handler mapping does per request
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreDispatchInterceptorBenchmark {
+    private static final Set<HttpMethod> allowedHttpMethods
+            = Set.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final PreDispatchInterceptor interceptor = new PreDispatchInterceptor(new SimpleMeterRegistry());
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final Controller controller = new Controller();
+    private Method method;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = Controller.class.getMethod("list", String.class, int.class, boolean.class);
+        request = new MockHttpServletRequest("GET", "/todos");
+        request.addParameter("after", "2020-06-01");
+        request.addParameter("size", "10");
+    }
+
+    @Benchmark
+    public boolean cached() throws Exception {
+        return interceptor.preHandle(request, response, handlerMethod());
+    }
+
+    @Benchmark
+    public boolean legacy() throws Exception {
+        String method = request.getMethod();
+        if (allowedHttpMethods.stream().noneMatch(httpMethod -> httpMethod.matches(method))) {
+            return false;
+        }
+        var handlerMethod = handlerMethod();
+        List<String> supportedParameters = Stream.of(handlerMethod.getMethodParameters())
+                .flatMap(methodParameter ->
+                        Stream.of(methodParameter.getParameterAnnotation(RequestParam.class)))
+                .filter(Objects::nonNull).map(RequestParam::name)
+                .collect(Collectors.toList());
+        List<String> parameters = Collections.list(request.getParameterNames());
+        parameters.removeAll(supportedParameters);
+        if (!parameters.isEmpty()) {
+            throw new UnsupportedRequestParameterException(parameters);
+        }
+        return true;
+    }
+
+    private HandlerMethod handlerMethod() {
+        return new HandlerMethod(controller, method);
+    }
+
+    public static class Controller {
+        public void list(@RequestParam(name = "after", required = false) String after,
+                         @RequestParam(name = "size") int size,
+                         @RequestParam(name = "done", required = false) boolean done) {
+        }
+    }
+}
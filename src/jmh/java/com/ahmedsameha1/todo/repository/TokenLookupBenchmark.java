@@ -0,0 +1,100 @@
+package com.ahmedsameha1.todo.repository;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares looking a token up by its uuid with looking it up by the SHA-256 of a 43 characters token
+// Needs a PostgreSQL 11 or later, given by -Dbenchmark.jdbc.url, -Dbenchmark.jdbc.username
+// and -Dbenchmark.jdbc.password, the first run fills both tables with benchmark.rows rows
+// Token i is the md5 of i as a uuid in one table, and the SHA-256 of i in the other,
+// so the benchmark can compute the key of any row the same way the service does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenLookupBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000_000);
+
+    private Connection connection;
+    private PreparedStatement uuidLookup;
+    private PreparedStatement tokenHashLookup;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("benchmark.jdbc.username", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres"));
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table if not exists benchmark_uuid_token"
+                    + " (token uuid primary key, user_account_id uuid not null)");
+            statement.execute("create table if not exists benchmark_hashed_token"
+                    + " (token_hash bytea primary key, user_account_id uuid not null)");
+            var resultSet = statement.executeQuery("select count(*) from benchmark_uuid_token");
+            resultSet.next();
+            if (resultSet.getLong(1) != ROWS) {
+                statement.execute("truncate benchmark_uuid_token, benchmark_hashed_token");
+                statement.execute("insert into benchmark_uuid_token select md5(i::text)::uuid, md5(i::text)::uuid"
+                        + " from generate_series(1, " + ROWS + ") i");
+                statement.execute("insert into benchmark_hashed_token select sha256(convert_to(i::text, 'UTF8')),"
+                        + " md5(i::text)::uuid from generate_series(1, " + ROWS + ") i");
+                statement.execute("vacuum analyze benchmark_uuid_token");
+                statement.execute("vacuum analyze benchmark_hashed_token");
+            }
+        }
+        uuidLookup = connection.prepareStatement("select user_account_id from benchmark_uuid_token where token = ?");
+        tokenHashLookup = connection
+                .prepareStatement("select user_account_id from benchmark_hashed_token where token_hash = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Object uuid() throws SQLException, NoSuchAlgorithmException {
+        var md5 = MessageDigest.getInstance("MD5").digest(randomRow().getBytes(StandardCharsets.UTF_8));
+        uuidLookup.setObject(1, uuid(md5));
+        return lookup(uuidLookup);
+    }
+
+    @Benchmark
+    public Object tokenHash() throws SQLException {
+        tokenHashLookup.setBytes(1, EmailVerificationToken.hash(randomRow()));
+        return lookup(tokenHashLookup);
+    }
+
+    private static String randomRow() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(1, ROWS + 1));
+    }
+
+    private static UUID uuid(byte[] bytes) {
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSignificantBits = (mostSignificantBits << 8) | (bytes[i] & 0xff);
+            leastSignificantBits = (leastSignificantBits << 8) | (bytes[i + 8] & 0xff);
+        }
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private static Object lookup(PreparedStatement lookup) throws SQLException {
+        try (var resultSet = lookup.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("The benchmark tables don't have the expected rows");
+            }
+            return resultSet.getObject(1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import javax.servlet.FilterChain;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.ahmedsameha1.todo.Constants.AUTHORIZATION;
+import static com.ahmedsameha1.todo.Constants.TOKEN_PREFIX;
+
+// Run it with the gc profiler (it is enabled in build.gradle) to compare the allocation rate per request.
+// legacyPath reproduces what JwtAuthorizationFilter did per request before it was redesigned
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthorizationFilterBenchmark {
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    private final FilterChain filterChain = (request, response) -> { };
+    private String secret;
+    private UserDetailsServiceImpl userDetailsService;
+    private JwtAuthorizationFilter jwtAuthorizationFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        var id = UUID.randomUUID();
+        var userAccount = new UserAccount() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+        };
+        userAccount.setUsername("username");
+        userAccount.setEnabled(true);
+        userDetailsService = new UserDetailsServiceImpl() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return userAccount;
+            }
+        };
+        var userAccountRepository = (UserAccountRepository) Proxy.newProxyInstance(
+                UserAccountRepository.class.getClassLoader(), new Class<?>[]{UserAccountRepository.class},
+                (proxy, method, arguments) -> 0);
+        var principalCache = new PrincipalCache(10, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        secret = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+        var jwtTokenCodec = new JwtTokenCodec(secret);
+        jwtAuthorizationFilter = new JwtAuthorizationFilter(userDetailsService, principalCache, jwtTokenCodec,
+                new TokenVersionRegistry(userAccountRepository, principalCache, 10, Duration.ofMinutes(1)),
+                stateless);
+        request = new MockHttpServletRequest();
+        request.addHeader(AUTHORIZATION, TOKEN_PREFIX
+                + jwtTokenCodec.encode(userAccount, Date.from(Instant.now().plus(1, ChronoUnit.DAYS))));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication legacyPath() {
+        String jwt = request.getHeader(AUTHORIZATION).replace(TOKEN_PREFIX, "");
+        Claims claims = Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(jwt).getBody();
+        LocalDateTime expiration = claims.getExpiration().toInstant()
+                .atOffset(OffsetDateTime.now().getOffset()).toLocalDateTime();
+        if (LocalDateTime.now().isBefore(expiration)) {
+            var authentication = new UsernamePasswordAuthenticationToken(
+                    userDetailsService.loadUserByUsername(claims.getSubject()), null);
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            return authentication;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Authentication currentPath() throws Exception {
+        jwtAuthorizationFilter.doFilter(request, response, filterChain);
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.ahmedsameha1.todo.security.JwtTokenCodec.*;
+
+// The *PerRequest benchmarks reproduce what JwtAuthorizationFilter and
+// UserAccountServiceImpl.authenticate did before JwtTokenCodec existed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenCodecBenchmark {
+    private String secret;
+    private Date expiration;
+    private UserAccount userAccount;
+    private JwtTokenCodec jwtTokenCodec;
+    private String jwt;
+
+    @Setup
+    public void setup() {
+        secret = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+        expiration = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        var id = UUID.randomUUID();
+        userAccount = new UserAccount() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+        };
+        userAccount.setUsername("username");
+        userAccount.setEnabled(true);
+        jwtTokenCodec = new JwtTokenCodec(secret);
+        jwt = jwtTokenCodec.encode(userAccount, expiration);
+    }
+
+    @Benchmark
+    public Claims decodeWithParserPerRequest() {
+        return Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(jwt).getBody();
+    }
+
+    @Benchmark
+    public Claims decodeWithSharedParser() {
+        return jwtTokenCodec.decode(jwt);
+    }
+
+    @Benchmark
+    public String encodeWithKeyPerRequest() {
+        return Jwts.builder()
+                .setSubject(userAccount.getUsername())
+                .claim(USER_ACCOUNT_ID_CLAIM, userAccount.getId().toString())
+                .claim(ENABLED_CLAIM, userAccount.isEnabled())
+                .claim(LOCKED_CLAIM, userAccount.isLocked())
+                .claim(TOKEN_VERSION_CLAIM, userAccount.getTokenVersion())
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))).compact();
+    }
+
+    @Benchmark
+    public String encodeWithSharedKey() {
+        return jwtTokenCodec.encode(userAccount, expiration);
+    }
+}
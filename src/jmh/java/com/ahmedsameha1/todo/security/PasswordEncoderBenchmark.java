@@ -0,0 +1,37 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.TodoApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Each benchmark runs on one thread, so the scores are hashes per second per core
+// encode is what signing up costs and matches is what signing in costs for the given strength
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class PasswordEncoderBenchmark {
+    @Param({"8", "10", "12", "14"})
+    private int strength;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        passwordEncoder = TodoApplication.delegatingPasswordEncoder(strength);
+        hash = passwordEncoder.encode("ffffff3Q");
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("ffffff3Q");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("ffffff3Q", hash);
+    }
+}
@@ -6,9 +6,19 @@ public class Constants {
     public static final String SIGN_UP_URL = "/sign_up";
     public static final String EMAIL_VERIFICATION_URL = "/email_verification";
     public static final String SIGN_IN_URL = "/sign_in";
+    public static final String USERNAME_AVAILABILITY_URL = "/username_available";
+    public static final String PASSWORD_RESET_REQUEST_URL = "/password_reset_request";
+    public static final String PASSWORD_RESET_URL = "/password_reset";
+    public static final String TODOS_URL = "/todos";
     public static final String REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE = "(?s)(?!.*[a-zA-Z_]\\w*\\.[a-zA-Z_]\\w*)^\\w.*$";
     public static final byte JWT_TOKEN_EXPIRATION_PERIOD_IN_DAYS = 10;
     public static final byte EMAIL_VERIFICATION_TOKEN_EXPIRATION_PERIOD_IN_DAYS = 1;
+    public static final byte PASSWORD_RESET_TOKEN_EXPIRATION_PERIOD_IN_HOURS = 2;
+    public static final byte TODOS_PAGE_MAX_SIZE = 100;
+    public static final short TODOS_BULK_MAX_SIZE = 500;
+    public static final short TODO_DESCRIPTION_PREVIEW_LENGTH = 255;
+    public static final int TODO_DESCRIPTION_MAX_LENGTH = 200000000;
+    public static final int TODO_DESCRIPTION_CHUNK_LENGTH = 65536;
 
     public static class ErrorCode {
         public static final short BAD_EMAIL_VERIFICATION_TOKEN = 1;
@@ -20,5 +30,13 @@ public class Constants {
         public static final short DATETIME_VALIDATION = 7;
         public static final short REQUEST_BODY_VALIDATION = 8;
         public static final short REQUEST_BODY_VALIDATION_UNKNOWN_PROPERTY = 9;
+        public static final short TODO_NOT_FOUND = 10;
+        public static final short INVALID_TODO_DESCRIPTION = 11;
+        public static final short TODO_CONFLICT = 12;
+        public static final short PASSWORD_HASHING_UNAVAILABLE = 13;
+        public static final short SIGN_IN_THROTTLED = 14;
+        public static final short BAD_PASSWORD_RESET_TOKEN = 15;
+        public static final short EXPIRED_PASSWORD_RESET_TOKEN = 16;
+        public static final short CONFLICT = 17;
     }
 }
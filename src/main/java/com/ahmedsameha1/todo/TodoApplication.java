@@ -1,21 +1,70 @@
 package com.ahmedsameha1.todo;
 
+import com.ahmedsameha1.todo.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
-@EnableAsync
+import java.util.Map;
+
+@EnableScheduling
 @SpringBootApplication
 public class TodoApplication {
+	public static final String BCRYPT_ENCODER_ID = "bcrypt";
 
 	public static void main(String[] args) {
 		SpringApplication.run(TodoApplication.class, args);
 	}
 
+	// Hashing runs on its own bounded pool, see BoundedPasswordEncoder
+	@Bean
+	public PasswordEncoder passwordEncoder(
+			@Value("${password.encoder.bcrypt.strength:10}") int bcryptStrength,
+			@Value("${password.encoder.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workerCount,
+			@Value("${password.encoder.queue-capacity:100}") int queueCapacity,
+			MeterRegistry meterRegistry) {
+		return new BoundedPasswordEncoder(delegatingPasswordEncoder(bcryptStrength), workerCount, queueCapacity,
+				meterRegistry);
+	}
+
+	// New hashes are prefixed with their encoder id, the hashes stored before that have no prefix and are bcrypt
+	// A hash whose encoder or strength isn't the current one is replaced on the next successful sign in,
+	// see UserDetailsServiceImpl.updatePassword
+	// PasswordEncoderBenchmark measures the cost of each strength
+	public static PasswordEncoder delegatingPasswordEncoder(int bcryptStrength) {
+		var bCryptPasswordEncoder = new BCryptPasswordEncoder(bcryptStrength);
+		var delegatingPasswordEncoder = new DelegatingPasswordEncoder(BCRYPT_ENCODER_ID,
+				Map.of(BCRYPT_ENCODER_ID, bCryptPasswordEncoder));
+		delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bCryptPasswordEncoder);
+		return delegatingPasswordEncoder;
+	}
+
+	// A database that was created from the schema script before the migrations existed
+	// takes the first migration as its baseline
+	@Bean
+	public FlywayConfigurationCustomizer flywayConfigurationCustomizer() {
+		return configuration -> configuration.baselineOnMigrate(true).baselineVersion("1");
+	}
+
+	// The ids are generated before inserting, so the inserts and the versioned updates of a flush
+	// can be sent to the database in batches, see TodoService.applyTodoOperations
 	@Bean
-	public BCryptPasswordEncoder bCryptPasswordEncoder() {
-		return new BCryptPasswordEncoder();
+	public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(
+			@Value("${jpa.jdbc.batch-size:50}") int batchSize) {
+		return properties -> {
+			properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+			properties.put(AvailableSettings.ORDER_INSERTS, true);
+			properties.put(AvailableSettings.ORDER_UPDATES, true);
+			properties.put(AvailableSettings.BATCH_VERSIONED_DATA, true);
+		};
 	}
 }
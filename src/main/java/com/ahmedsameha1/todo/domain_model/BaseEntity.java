@@ -35,4 +35,10 @@ public abstract class BaseEntity {
     @JsonIgnore
     @UpdateTimestamp
     private Instant updateTime;
+
+    // Marks the entity as changed, so it is updated with a new version even if only data that is
+    // written outside of Hibernate changed
+    public void touch() {
+        updateTime = Instant.now();
+    }
 }
@@ -0,0 +1,19 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import static com.ahmedsameha1.todo.Constants.TODOS_BULK_MAX_SIZE;
+
+@Setter @Getter
+public class BulkTodoRequest {
+    @NotEmpty
+    @Size(max = TODOS_BULK_MAX_SIZE)
+    private List<@NotNull @Valid TodoOperation> operations;
+}
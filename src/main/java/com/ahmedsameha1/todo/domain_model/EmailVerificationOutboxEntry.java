@@ -0,0 +1,35 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+// A verification email that still has to be sent, written in the same transaction as its UserAccount
+// A relay claims it until claimedUntil and deletes it once the email is sent, see EmailVerificationRelay
+// Every claim counts in attempts, an entry is no longer claimed once they reach the limit of the relay
+@Entity
+@Table(name = "email_verification_outbox")
+@Getter @Setter
+public class EmailVerificationOutboxEntry extends BaseEntity {
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_account_id", nullable = false)
+    private UserAccount userAccount;
+
+    @NotNull
+    @Column(nullable = false)
+    private String appUrl;
+
+    @NotNull
+    @Column(nullable = false)
+    private Locale locale;
+
+    private LocalDateTime claimedUntil;
+
+    @Column(nullable = false)
+    private int attempts;
+}
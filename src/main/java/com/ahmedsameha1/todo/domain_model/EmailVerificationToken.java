@@ -1,5 +1,6 @@
 package com.ahmedsameha1.todo.domain_model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,17 +8,35 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.Transient;
 import javax.validation.constraints.Future;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Base64;
 
 @Entity
 @Getter @Setter
 public class EmailVerificationToken extends BaseEntity {
+    public static final int TOKEN_LENGTH_IN_BYTES = 32;
+    public static final int TOKEN_HASH_LENGTH_IN_BYTES = 32;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    // Only the SHA-256 of the token is stored, so a leaked table doesn't leak working links
     @NotNull
-    @Column(nullable = false, unique = true)
-    private UUID token;
+    @Size(min = TOKEN_HASH_LENGTH_IN_BYTES, max = TOKEN_HASH_LENGTH_IN_BYTES)
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false, unique = true, length = TOKEN_HASH_LENGTH_IN_BYTES)
+    private byte[] tokenHash;
+
+    // The token itself is known only to the instance that created it, long enough to email it
+    @Transient
+    private String token;
 
     @NotNull
     @Future
@@ -28,4 +47,25 @@ public class EmailVerificationToken extends BaseEntity {
     @OneToOne
     @JoinColumn(name = "user_account_id", nullable = false, unique = true)
     private UserAccount userAccount;
+
+    public void setToken(String token) {
+        this.token = token;
+        tokenHash = token == null ? null : hash(token);
+    }
+
+    // 32 random bytes, base64url encoded to 43 characters that need no escaping in a link
+    public static String newToken() {
+        var bytes = new byte[TOKEN_LENGTH_IN_BYTES];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -3,20 +3,38 @@ package com.ahmedsameha1.todo.domain_model;
 import lombok.*;
 
 import javax.persistence.*;
+import javax.validation.Valid;
 import javax.validation.constraints.Future;
-import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.time.LocalDate;
+import java.util.UUID;
+
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_PREVIEW_LENGTH;
 
 @Entity
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Todo extends BaseEntity {
-    @NotBlank
-    @Size(min = 1, max = 200000000)
-    @Column(nullable = false)
-    private String description;
+    // The description can be up to 200000000 characters, so it is only loaded when getDescription is called
+    // Listings read descriptionPreview instead
+    @NotNull
+    @Valid
+    @OneToOne(fetch = FetchType.LAZY, optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @JoinColumn(name = "description_id", nullable = false, unique = true)
+    @Getter(value = AccessLevel.NONE)
+    @Setter(value = AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private TodoDescription body;
+
+    // Lets the description be replaced or deleted without initializing body
+    @Setter(value = AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @Column(name = "description_id", insertable = false, updatable = false)
+    private UUID descriptionId;
+
+    @Column(nullable = false, length = TODO_DESCRIPTION_PREVIEW_LENGTH)
+    private String descriptionPreview;
 
     @NotNull
     @Future
@@ -34,7 +52,18 @@ public class Todo extends BaseEntity {
 
     @Version
     @Setter(value = AccessLevel.PRIVATE)
-    @Getter(value = AccessLevel.PRIVATE)
     @Column(nullable = false)
     private long version = 0L;
+
+    public String getDescription() {
+        return body == null ? null : body.getContent();
+    }
+
+    public void setDescription(String description) {
+        if (body == null) {
+            body = new TodoDescription();
+        }
+        body.setContent(description);
+        descriptionPreview = TodoDescription.previewOf(description);
+    }
 }
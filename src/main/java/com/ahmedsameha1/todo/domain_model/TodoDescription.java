@@ -0,0 +1,68 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import lombok.EqualsAndHashCode;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ahmedsameha1.todo.Constants.*;
+
+// The full text of a Todo, kept out of the todo table so loading or listing todos never reads it
+// It is stored in chunks so it can also be streamed to and from the database, see TodoService
+@Entity
+@EqualsAndHashCode(callSuper = true)
+public class TodoDescription extends BaseEntity {
+    @ElementCollection
+    @CollectionTable(name = "todo_description_chunk", joinColumns = @JoinColumn(name = "description_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "content", nullable = false)
+    @EqualsAndHashCode.Exclude
+    private List<String> chunks = new ArrayList<>();
+
+    @NotBlank
+    @Size(min = 1, max = TODO_DESCRIPTION_MAX_LENGTH)
+    public String getContent() {
+        return chunks.isEmpty() ? null : String.join("", chunks);
+    }
+
+    public void setContent(String content) {
+        chunks.clear();
+        chunks.addAll(chunksOf(content));
+    }
+
+    public static List<String> chunksOf(String content) {
+        var chunks = new ArrayList<String>();
+        if (content == null) {
+            return chunks;
+        }
+        var start = 0;
+        while (start < content.length()) {
+            var end = chunkEnd(content, start);
+            chunks.add(content.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    public static String previewOf(String content) {
+        if (content == null || content.length() <= TODO_DESCRIPTION_PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, splitPoint(content, TODO_DESCRIPTION_PREVIEW_LENGTH));
+    }
+
+    private static int chunkEnd(String content, int start) {
+        if (content.length() - start <= TODO_DESCRIPTION_CHUNK_LENGTH) {
+            return content.length();
+        }
+        return splitPoint(content, start + TODO_DESCRIPTION_CHUNK_LENGTH);
+    }
+
+    // Don't split a surrogate pair, half of it can't be encoded
+    private static int splitPoint(CharSequence content, int end) {
+        return Character.isHighSurrogate(content.charAt(end - 1)) ? end - 1 : end;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import java.util.UUID;
+
+// One item of a bulk request, UPDATE and DELETE carry the version the client last saw
+@Setter @Getter
+public class TodoOperation {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    @NotNull
+    private Type type;
+
+    private UUID id;
+
+    private Long version;
+
+    @Valid
+    private TodoRequest todo;
+
+    @JsonIgnore
+    @AssertTrue(message = "CREATE needs todo, UPDATE needs id, version and todo, DELETE needs id and version")
+    public boolean isComplete() {
+        if (type == null) {
+            return true;
+        }
+        switch (type) {
+            case CREATE:
+                return todo != null;
+            case UPDATE:
+                return id != null && version != null && todo != null;
+            default:
+                return id != null && version != null;
+        }
+    }
+}
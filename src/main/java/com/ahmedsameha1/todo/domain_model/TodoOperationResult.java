@@ -0,0 +1,20 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+// The results of a bulk request are in the same order as its operations
+// version is the one to send with the next UPDATE or DELETE of this todo
+@Getter
+@AllArgsConstructor
+public class TodoOperationResult {
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT
+    }
+
+    private final UUID id;
+    private final Status status;
+    private final Long version;
+}
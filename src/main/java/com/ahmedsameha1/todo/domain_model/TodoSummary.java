@@ -0,0 +1,33 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// A read only view of a Todo, the queries select it directly so neither UserAccount nor the full description
+// is ever loaded for it
+@Getter
+@AllArgsConstructor
+public class TodoSummary {
+    private final UUID id;
+    private final String descriptionPreview;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @JsonSerialize(using = LocalDateSerializer.class)
+    private final LocalDate targetDate;
+
+    private final boolean done;
+
+    // Sent back with the bulk updates and deletes, see TodoOperation
+    private final long version;
+
+    public static TodoSummary of(Todo todo) {
+        return new TodoSummary(todo.getId(), todo.getDescriptionPreview(), todo.getTargetDate(), todo.isDone(),
+                todo.getVersion());
+    }
+}
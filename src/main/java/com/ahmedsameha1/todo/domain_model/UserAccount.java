@@ -14,6 +14,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -83,6 +84,10 @@ public class UserAccount extends BaseEntity implements UserDetails {
     @Column(nullable = false)
     private boolean locked = false;
 
+    // Set by SignInThrottle, signing in is refused until then but the issued JWTs stay valid
+    @JsonIgnore
+    private LocalDateTime lockedUntil;
+
     @NotNull
     @JsonIgnore
     @Column(nullable = false)
@@ -99,6 +104,12 @@ public class UserAccount extends BaseEntity implements UserDetails {
     @Column(nullable = false)
     private long version = 0L;
 
+    // Every issued JWT carries this value, incrementing it revokes all of them
+    @Setter(value = AccessLevel.PRIVATE)
+    @JsonIgnore
+    @Column(nullable = false)
+    private int tokenVersion = 0;
+
     @JsonIgnore
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -114,7 +125,7 @@ public class UserAccount extends BaseEntity implements UserDetails {
     @JsonIgnore
     @Override
     public boolean isAccountNonLocked() {
-        return !locked;
+        return !locked && (lockedUntil == null || !lockedUntil.isAfter(LocalDateTime.now()));
     }
 
     @JsonIgnore
@@ -0,0 +1,98 @@
+package com.ahmedsameha1.todo.email_verification;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationOutboxEntry;
+import com.ahmedsameha1.todo.mail.MailDispatcher;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
+import com.ahmedsameha1.todo.service.UserAccountService;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.ahmedsameha1.todo.Constants.EMAIL_VERIFICATION_URL;
+
+// Moves the committed outbox entries to MailDispatcher
+// A batch is claimed and its tokens are created in one transaction, the emails are only queued after it commits
+// An entry is deleted once its email is sent, an email that can't be queued gets its entry released
+// An entry whose email was given up on by MailDispatcher is claimed again after claimDuration, up to maxAttempts
+@Component
+public class EmailVerificationRelay {
+    @Autowired
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
+
+    @Autowired
+    private UserAccountService userAccountService;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${email-verification.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email-verification.relay.claim-duration:PT5M}")
+    private Duration claimDuration;
+
+    @Value("${email-verification.relay.max-attempts:5}")
+    private int maxAttempts;
+
+    @Scheduled(fixedDelayString = "${email-verification.relay.interval:PT5S}")
+    public void relay() {
+        List<PendingEmail> pendingEmails;
+        do {
+            pendingEmails = transactionTemplate.execute(status -> claim());
+            for (var pendingEmail : pendingEmails) {
+                if (!mailDispatcher.dispatch(pendingEmail.email,
+                        () -> emailVerificationOutboxRepository.deleteById(pendingEmail.id))) {
+                    emailVerificationOutboxRepository.releaseClaim(pendingEmail.id);
+                }
+            }
+        } while (pendingEmails.size() == batchSize && mailDispatcher.queueDepth() < batchSize);
+    }
+
+    private List<PendingEmail> claim() {
+        var now = LocalDateTime.now();
+        var entries = emailVerificationOutboxRepository.claim(now, now.plus(claimDuration), maxAttempts,
+                batchSize);
+        var pendingEmails = new ArrayList<PendingEmail>(entries.size());
+        for (var entry : entries) {
+            pendingEmails.add(new PendingEmail(entry.getId(), email(entry)));
+        }
+        return pendingEmails;
+    }
+
+    private SimpleMailMessage email(EmailVerificationOutboxEntry entry) {
+        var userAccount = entry.getUserAccount();
+        var emailVerificationToken = userAccountService.createEmailVerificationToken(userAccount);
+        var emailVerificationUrl = entry.getAppUrl()
+                + EMAIL_VERIFICATION_URL + "?token=" + emailVerificationToken.getToken();
+        var emailVerificationMessage = messageSource.getMessage("emailVerificationMessage",
+                null, entry.getLocale());
+        var email = new SimpleMailMessage();
+        email.setTo(userAccount.getEmail());
+        email.setSubject("Registration Confirmation");
+        email.setText(emailVerificationMessage + "\r\n" + emailVerificationUrl);
+        return email;
+    }
+
+    @AllArgsConstructor
+    private static class PendingEmail {
+        private final UUID id;
+        private final SimpleMailMessage email;
+    }
+}
@@ -1,47 +1,24 @@
 package com.ahmedsameha1.todo.email_verification;
 
-import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
-import com.ahmedsameha1.todo.domain_model.UserAccount;
-import com.ahmedsameha1.todo.service.UserAccountService;
+import com.ahmedsameha1.todo.domain_model.EmailVerificationOutboxEntry;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
-import static com.ahmedsameha1.todo.Constants.EMAIL_VERIFICATION_URL;
-
-
+// Runs on the publishing thread, so the outbox entry is saved in the transaction of the publisher
+// EmailVerificationRelay creates the token and sends the email once it is committed
 @Component
 public class RegistrationListener implements ApplicationListener<NeedEmailVerificationToken> {
     @Autowired
-    private UserAccountService userAccountService;
-
-    @Autowired
-    private JavaMailSender javaMailSender;
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
 
-    @Autowired
-    private MessageSource messageSource;
-
-    @Async
     @Override
     public void onApplicationEvent(NeedEmailVerificationToken event) {
-        UserAccount userAccount = event.getUserAccount();
-        EmailVerificationToken emailVerificationToken = userAccountService.createEmailVerificationToken(userAccount);
-        var emailVerificationUrl = event.getAppUrl()
-                + EMAIL_VERIFICATION_URL + "?token=" + emailVerificationToken.getToken();
-        var emailVerificationMessage = messageSource.getMessage("emailVerificationMessage",
-                null, event.getLocale());
-        sendEmail(userAccount, emailVerificationMessage, emailVerificationUrl);
-    }
-
-    private void sendEmail(UserAccount userAccount, String emailVerificationMessage, String emailVerificationUrl) {
-        var email = new SimpleMailMessage();
-        email.setTo(userAccount.getEmail());
-        email.setSubject("Registration Confirmation");
-        email.setText(emailVerificationMessage + "\r\n" + emailVerificationUrl);
-        javaMailSender.send(email);
+        var emailVerificationOutboxEntry = new EmailVerificationOutboxEntry();
+        emailVerificationOutboxEntry.setUserAccount(event.getUserAccount());
+        emailVerificationOutboxEntry.setAppUrl(event.getAppUrl());
+        emailVerificationOutboxEntry.setLocale(event.getLocale());
+        emailVerificationOutboxRepository.save(emailVerificationOutboxEntry);
     }
 }
@@ -0,0 +1,4 @@
+package com.ahmedsameha1.todo.exception;
+
+public class BadPasswordResetTokenException extends RuntimeException {
+}
@@ -0,0 +1,70 @@
+package com.ahmedsameha1.todo.exception;
+
+// Replaces the fully qualified class names in a message with their simple names, so the error
+// responses don't tell which classes the application is made of
+// It finds what [a-zA-Z_]\w*(\.[a-zA-Z_]\w*)+ finds, in one pass without backtracking,
+// and only looks at the first MAXIMUM_MESSAGE_LENGTH characters of a message
+public final class ClassNameScrubber {
+    public static final int MAXIMUM_MESSAGE_LENGTH = 1000;
+
+    private ClassNameScrubber() {
+    }
+
+    public static String scrub(String message) {
+        var length = Math.min(message.length(), MAXIMUM_MESSAGE_LENGTH);
+        // Created at the first class name, most messages have none
+        StringBuilder scrubbed = null;
+        var copied = 0;
+        var position = 0;
+        while (position < length) {
+            if (!isWordCharacter(message.charAt(position))) {
+                position++;
+                continue;
+            }
+            // A name can only start at the first letter or underscore of a word, digits before it aren't part of it
+            var wordEnd = endOfWord(message, position, length);
+            var start = position;
+            while (start < wordEnd && !isIdentifierStart(message.charAt(start))) {
+                start++;
+            }
+            if (start == wordEnd) {
+                position = wordEnd;
+                continue;
+            }
+            var end = wordEnd;
+            var lastSegmentStart = -1;
+            while (end + 1 < length && message.charAt(end) == '.' && isIdentifierStart(message.charAt(end + 1))) {
+                lastSegmentStart = end + 1;
+                end = endOfWord(message, lastSegmentStart, length);
+            }
+            if (lastSegmentStart != -1) {
+                if (scrubbed == null) {
+                    scrubbed = new StringBuilder(length);
+                }
+                scrubbed.append(message, copied, start).append(message, lastSegmentStart, end);
+                copied = end;
+            }
+            position = end;
+        }
+        if (scrubbed == null) {
+            return length == message.length() ? message : message.substring(0, length);
+        }
+        return scrubbed.append(message, copied, length).toString();
+    }
+
+    private static int endOfWord(String message, int position, int length) {
+        while (position < length && isWordCharacter(message.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    // \w of java.util.regex, ASCII only
+    private static boolean isWordCharacter(char character) {
+        return isIdentifierStart(character) || (character >= '0' && character <= '9');
+    }
+
+    private static boolean isIdentifierStart(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z') || character == '_';
+    }
+}
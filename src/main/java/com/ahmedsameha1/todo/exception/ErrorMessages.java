@@ -0,0 +1,69 @@
+package com.ahmedsameha1.todo.exception;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// The error messages that take no arguments, resolved once for every supported language,
+// so answering an error costs a map lookup instead of a ResourceBundle and MessageFormat round
+// A request whose language isn't supported, or a message that couldn't be resolved at startup,
+// goes to the MessageSource as before
+public class ErrorMessages {
+    public static final List<String> CODES = List.of(
+            "error.userExistsProblem", "error.userExistsSuggestion",
+            "error.userAccountLockedProblem",
+            "error.badCredentialsProblem", "error.badCredentialsSuggestion",
+            "error.badEmailVerificationTokenProblem", "error.badEmailVerificationTokenSuggestion",
+            "error.ExpiredEmailVerificationTokenProblem", "error.ExpiredEmailVerificationTokenSuggestion",
+            "error.badPasswordResetTokenProblem", "error.badPasswordResetTokenSuggestion",
+            "error.expiredPasswordResetTokenProblem", "error.expiredPasswordResetTokenSuggestion",
+            "error.DisabledExceptionProblem", "error.DisabledExceptionSuggestion",
+            "error.todoNotFoundProblem",
+            "error.invalidTodoDescriptionProblem",
+            "error.todoConflictProblem", "error.todoConflictSuggestion",
+            "error.conflictProblem", "error.conflictSuggestion",
+            "error.passwordHashingUnavailableProblem", "error.passwordHashingUnavailableSuggestion",
+            "error.signInThrottledProblem", "error.signInThrottledSuggestion",
+            "error.datetimeValidation", "suggestion.datetimeValidation",
+            "suggestion.requestBodyValidation");
+
+    private final MessageSource messageSource;
+    private final Map<String, Map<String, String>> messagesByLanguage;
+
+    // A language resolves the same bundle for all of its countries, ar_EG and ar both find messages_ar
+    public ErrorMessages(MessageSource messageSource, List<String> languages) {
+        this.messageSource = messageSource;
+        var messagesByLanguage = new HashMap<String, Map<String, String>>();
+        for (var language : languages) {
+            var locale = new Locale(language);
+            var messages = new HashMap<String, String>();
+            for (var code : CODES) {
+                try {
+                    var message = messageSource.getMessage(code, null, locale);
+                    if (message != null) {
+                        messages.put(code, message);
+                    }
+                } catch (NoSuchMessageException e) {
+                    // Left to the MessageSource, that answers it at request time as it did before
+                }
+            }
+            messagesByLanguage.put(locale.getLanguage(), Map.copyOf(messages));
+        }
+        this.messagesByLanguage = Map.copyOf(messagesByLanguage);
+    }
+
+    public String get(String code, Locale locale) {
+        var message = resolved(code, locale);
+        return message != null ? message : messageSource.getMessage(code, null, locale);
+    }
+
+    // The message resolved at startup, null when there is none
+    public String resolved(String code, Locale locale) {
+        var messages = messagesByLanguage.get(locale.getLanguage());
+        return messages == null ? null : messages.get(code);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ahmedsameha1.todo.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.AllArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// The bodies of the most frequent error responses, encoded once per language from ErrorMessages
+// Only the timestamp and the path are written per response, the bytes are the same Jackson writes
+// for an ErrorResponse with the same fields: timestamp, path, code, message then suggestion
+public class ErrorResponseTemplates {
+    private static final byte[] TIMESTAMP = "{\"timestamp\":\"".getBytes(UTF_8);
+    private static final byte[] PATH = "\",\"path\":\"".getBytes(UTF_8);
+
+    // The part of the body after the path, by language then by the problem message code
+    private final Map<String, Map<String, byte[]>> tailsByLanguage;
+
+    public ErrorResponseTemplates(ErrorMessages errorMessages, List<String> languages, List<Template> templates) {
+        var tailsByLanguage = new HashMap<String, Map<String, byte[]>>();
+        for (var language : languages) {
+            var locale = new Locale(language);
+            var tails = new HashMap<String, byte[]>();
+            for (var template : templates) {
+                var tail = tail(errorMessages, template, locale);
+                if (tail != null) {
+                    tails.put(template.problem, tail);
+                }
+            }
+            tailsByLanguage.put(locale.getLanguage(), Map.copyOf(tails));
+        }
+        this.tailsByLanguage = Map.copyOf(tailsByLanguage);
+    }
+
+    // Null when there is no template for the problem in the language of the locale,
+    // the caller then builds an ErrorResponse
+    public byte[] body(String problem, Locale locale, String path, Instant timestamp) {
+        var tails = tailsByLanguage.get(locale.getLanguage());
+        var tail = tails == null ? null : tails.get(problem);
+        if (tail == null) {
+            return null;
+        }
+        // Instant.toString is ISO_INSTANT, the format Jackson writes an Instant with, and it is ASCII
+        var formattedTimestamp = timestamp.toString();
+        var escapedPath = JsonStringEncoder.getInstance().quoteAsUTF8(path);
+        var body = new byte[TIMESTAMP.length + formattedTimestamp.length() + PATH.length
+                + escapedPath.length + tail.length];
+        System.arraycopy(TIMESTAMP, 0, body, 0, TIMESTAMP.length);
+        var position = TIMESTAMP.length;
+        for (int i = 0; i < formattedTimestamp.length(); i++) {
+            body[position++] = (byte) formattedTimestamp.charAt(i);
+        }
+        System.arraycopy(PATH, 0, body, position, PATH.length);
+        position += PATH.length;
+        System.arraycopy(escapedPath, 0, body, position, escapedPath.length);
+        position += escapedPath.length;
+        System.arraycopy(tail, 0, body, position, tail.length);
+        return body;
+    }
+
+    private static byte[] tail(ErrorMessages errorMessages, Template template, Locale locale) {
+        var message = errorMessages.resolved(template.problem, locale);
+        var suggestion = template.suggestion == null ? null : errorMessages.resolved(template.suggestion, locale);
+        // Jackson leaves empty messages out, those responses are left to it
+        if (message == null || message.isEmpty()
+                || (template.suggestion != null && (suggestion == null || suggestion.isEmpty()))) {
+            return null;
+        }
+        var tail = new ByteArrayOutputStream();
+        tail.writeBytes(("\",\"code\":" + template.code + ",\"message\":\"").getBytes(UTF_8));
+        tail.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(message));
+        if (suggestion != null) {
+            tail.writeBytes("\",\"suggestion\":\"".getBytes(UTF_8));
+            tail.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(suggestion));
+        }
+        tail.writeBytes("\"}".getBytes(UTF_8));
+        return tail.toByteArray();
+    }
+
+    // An error response without arguments, suggestion is null for the ones that have none
+    @AllArgsConstructor
+    public static class Template {
+        private final String problem;
+        private final String suggestion;
+        private final short code;
+    }
+}
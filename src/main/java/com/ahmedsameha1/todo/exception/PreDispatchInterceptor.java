@@ -0,0 +1,101 @@
+package com.ahmedsameha1.todo.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// The checks every request goes through once its handler is known, before the handler runs:
+// the Http method is one of ALLOWED_HTTP_METHODS, then the request parameters are all @RequestParam
+// of the handler method. It is the only interceptor WebSecurityConfigurer registers
+// Each stage is timed by the pre.dispatch timer, tagged with the stage
+// A request whose method no handler is mapped for doesn't get here, the handler mapping answers it with 405
+@Component
+public class PreDispatchInterceptor extends HandlerInterceptorAdapter {
+    public static final String METRIC_NAME = "pre.dispatch";
+    public static final Set<HttpMethod> ALLOWED_HTTP_METHODS =
+            EnumSet.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private static final String[] ALLOWED_HTTP_METHOD_NAMES = ALLOWED_HTTP_METHODS.stream()
+            .map(HttpMethod::name).toArray(String[]::new);
+
+    // The handler mapping creates a HandlerMethod per request, its Method is the same every time
+    private final Map<Method, Set<String>> supportedParametersByMethod = new ConcurrentHashMap<>();
+    private final Timer httpMethodTimer;
+    private final Timer requestParametersTimer;
+
+    public PreDispatchInterceptor(MeterRegistry meterRegistry) {
+        httpMethodTimer = meterRegistry.timer(METRIC_NAME, "stage", "http_method");
+        requestParametersTimer = meterRegistry.timer(METRIC_NAME, "stage", "request_parameters");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws HttpRequestMethodNotSupportedException {
+        var start = System.nanoTime();
+        try {
+            var httpMethod = HttpMethod.resolve(request.getMethod());
+            if (httpMethod == null || !ALLOWED_HTTP_METHODS.contains(httpMethod)) {
+                throw new HttpRequestMethodNotSupportedException(request.getMethod(), ALLOWED_HTTP_METHOD_NAMES);
+            }
+        } finally {
+            httpMethodTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (handler instanceof HandlerMethod) {
+            start = System.nanoTime();
+            try {
+                checkRequestParameters(request, (HandlerMethod) handler);
+            } finally {
+                requestParametersTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        return true;
+    }
+
+    private void checkRequestParameters(HttpServletRequest request, HandlerMethod handlerMethod) {
+        var supportedParameters = supportedParametersByMethod.get(handlerMethod.getMethod());
+        if (supportedParameters == null) {
+            supportedParameters = supportedParameters(handlerMethod);
+            supportedParametersByMethod.putIfAbsent(handlerMethod.getMethod(), supportedParameters);
+        }
+        List<String> unsupportedParameters = null;
+        var parameters = request.getParameterNames();
+        while (parameters.hasMoreElements()) {
+            var parameter = parameters.nextElement();
+            if (!supportedParameters.contains(parameter)) {
+                if (unsupportedParameters == null) {
+                    unsupportedParameters = new ArrayList<>();
+                }
+                unsupportedParameters.add(parameter);
+            }
+        }
+        if (unsupportedParameters != null) {
+            throw new UnsupportedRequestParameterException(unsupportedParameters);
+        }
+    }
+
+    private static Set<String> supportedParameters(HandlerMethod handlerMethod) {
+        return Stream.of(handlerMethod.getMethodParameters())
+                .map(methodParameter -> methodParameter.getParameterAnnotation(RequestParam.class))
+                .filter(Objects::nonNull).map(RequestParam::name)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
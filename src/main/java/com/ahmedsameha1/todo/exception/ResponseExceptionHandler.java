@@ -1,15 +1,19 @@
 package com.ahmedsameha1.todo.exception;
 
+import com.ahmedsameha1.todo.domain_model.Todo;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.exc.IgnoredPropertyException;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
@@ -20,49 +24,74 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.time.DateTimeException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.time.Instant;
+import java.util.List;
 
 import static com.ahmedsameha1.todo.Constants.ErrorCode.*;
-import static com.ahmedsameha1.todo.Constants.REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE;
 
 @RestControllerAdvice
 public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
     @Autowired
     private MessageSource messageSource;
 
+    @Value("${error-messages.languages:en,ar}")
+    private List<String> languages;
+
+    private ErrorMessages errorMessages;
+    private ErrorResponseTemplates errorResponseTemplates;
+
+    @PostConstruct
+    public void resolveErrorMessages() {
+        errorMessages = new ErrorMessages(messageSource, languages);
+        errorResponseTemplates = new ErrorResponseTemplates(errorMessages, languages, List.of(
+                new ErrorResponseTemplates.Template("error.userExistsProblem", "error.userExistsSuggestion",
+                        USER_EXISTS),
+                new ErrorResponseTemplates.Template("error.userAccountLockedProblem", null, (short) 0),
+                new ErrorResponseTemplates.Template("error.badCredentialsProblem", "error.badCredentialsSuggestion",
+                        (short) 0)));
+    }
+
     @ExceptionHandler(UserExistsException.class)
-    public ResponseEntity<ErrorResponse> sameUserExists(HttpServletRequest request) {
+    public ResponseEntity<?> sameUserExists(HttpServletRequest request) {
+        var body = errorResponseTemplates.body("error.userExistsProblem", request.getLocale(),
+                request.getRequestURI(), Instant.now());
+        if (body != null) {
+            return preEncoded(body, HttpStatus.CONFLICT);
+        }
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.userExistsProblem",
-                null, request.getLocale()));
-        errorResponse.setSuggestion(messageSource.getMessage("error.userExistsSuggestion",
-                null, request.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.userExistsProblem", request.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.userExistsSuggestion", request.getLocale()));
         errorResponse.setCode(USER_EXISTS);
         errorResponse.setPath(request.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
     @ExceptionHandler(LockedException.class)
-    public ResponseEntity<ErrorResponse> userAccountLocked(HttpServletRequest request) {
+    public ResponseEntity<?> userAccountLocked(HttpServletRequest request) {
+        var body = errorResponseTemplates.body("error.userAccountLockedProblem", request.getLocale(),
+                request.getRequestURI(), Instant.now());
+        if (body != null) {
+            return preEncoded(body, HttpStatus.LOCKED);
+        }
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.userAccountLockedProblem",
-                null, request.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.userAccountLockedProblem", request.getLocale()));
         errorResponse.setPath(request.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.LOCKED);
     }
 
     @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<ErrorResponse> wrongUsernamePasswordCombination(HttpServletRequest request) {
+    public ResponseEntity<?> wrongUsernamePasswordCombination(HttpServletRequest request) {
+        var body = errorResponseTemplates.body("error.badCredentialsProblem", request.getLocale(),
+                request.getRequestURI(), Instant.now());
+        if (body != null) {
+            return preEncoded(body, HttpStatus.UNAUTHORIZED);
+        }
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.badCredentialsProblem",
-                null, request.getLocale()));
-        errorResponse.setSuggestion(messageSource.getMessage("error.badCredentialsSuggestion",
-                null, request.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.badCredentialsProblem", request.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.badCredentialsSuggestion", request.getLocale()));
         errorResponse.setPath(request.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
@@ -70,10 +99,9 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(BadEmailVerificationTokenException.class)
     public ResponseEntity<ErrorResponse> badEmailVerificationToken(HttpServletRequest request) {
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.badEmailVerificationTokenProblem",
-                null, request.getLocale()));
-        errorResponse.setSuggestion(messageSource.getMessage("error.badEmailVerificationTokenSuggestion",
-                null, request.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.badEmailVerificationTokenProblem", request.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.badEmailVerificationTokenSuggestion",
+                request.getLocale()));
         errorResponse.setCode(BAD_EMAIL_VERIFICATION_TOKEN);
         errorResponse.setPath(request.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
@@ -82,27 +110,114 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(ExpiredEmailVerificationTokenException.class)
     public ResponseEntity<ErrorResponse> expiredEmailVerificationTokenException(HttpServletRequest httpServletRequest) {
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.ExpiredEmailVerificationTokenProblem",
-                null, httpServletRequest.getLocale()));
-        errorResponse.setSuggestion(messageSource.getMessage("error.ExpiredEmailVerificationTokenSuggestion",
-                null, httpServletRequest.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.ExpiredEmailVerificationTokenProblem",
+                httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.ExpiredEmailVerificationTokenSuggestion",
+                httpServletRequest.getLocale()));
         errorResponse.setCode(EXPIRED_EMAIL_VERIFICATION_TOKEN);
         errorResponse.setPath(httpServletRequest.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(BadPasswordResetTokenException.class)
+    public ResponseEntity<ErrorResponse> badPasswordResetToken(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.badPasswordResetTokenProblem",
+                httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.badPasswordResetTokenSuggestion",
+                httpServletRequest.getLocale()));
+        errorResponse.setCode(BAD_PASSWORD_RESET_TOKEN);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ExpiredPasswordResetTokenException.class)
+    public ResponseEntity<ErrorResponse> expiredPasswordResetToken(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.expiredPasswordResetTokenProblem",
+                httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.expiredPasswordResetTokenSuggestion",
+                httpServletRequest.getLocale()));
+        errorResponse.setCode(EXPIRED_PASSWORD_RESET_TOKEN);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(DisabledException.class)
     public ResponseEntity<ErrorResponse> disabledUserAccount(HttpServletRequest httpServletRequest) {
         var errorResponse = new ErrorResponse();
-        errorResponse.setMessage(messageSource.getMessage("error.DisabledExceptionProblem",
-                null, httpServletRequest.getLocale()));
-        errorResponse.setSuggestion(messageSource.getMessage("error.DisabledExceptionSuggestion",
-                null, httpServletRequest.getLocale()));
+        errorResponse.setMessage(errorMessages.get("error.DisabledExceptionProblem", httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.DisabledExceptionSuggestion",
+                httpServletRequest.getLocale()));
         errorResponse.setCode(DISABLED_USER_ACCOUNT);
         errorResponse.setPath(httpServletRequest.getRequestURI());
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(TodoNotFoundException.class)
+    public ResponseEntity<ErrorResponse> todoNotFound(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.todoNotFoundProblem", httpServletRequest.getLocale()));
+        errorResponse.setCode(TODO_NOT_FOUND);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(InvalidTodoDescriptionException.class)
+    public ResponseEntity<ErrorResponse> invalidTodoDescription(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.invalidTodoDescriptionProblem",
+                httpServletRequest.getLocale()));
+        errorResponse.setCode(INVALID_TODO_DESCRIPTION);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    // Optimistic locking isn't only used by todos, any other entity gets a generic conflict
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> conflict(ObjectOptimisticLockingFailureException exception,
+                                                  HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        if (Todo.class.getName().equals(exception.getPersistentClassName())) {
+            errorResponse.setMessage(errorMessages.get("error.todoConflictProblem", httpServletRequest.getLocale()));
+            errorResponse.setSuggestion(errorMessages.get("error.todoConflictSuggestion",
+                    httpServletRequest.getLocale()));
+            errorResponse.setCode(TODO_CONFLICT);
+        } else {
+            errorResponse.setMessage(errorMessages.get("error.conflictProblem", httpServletRequest.getLocale()));
+            errorResponse.setSuggestion(errorMessages.get("error.conflictSuggestion", httpServletRequest.getLocale()));
+            errorResponse.setCode(CONFLICT);
+        }
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    // The password hashing pool is saturated, failing fast keeps the request threads free
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ErrorResponse> passwordHashingUnavailable(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.passwordHashingUnavailableProblem",
+                httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.passwordHashingUnavailableSuggestion",
+                httpServletRequest.getLocale()));
+        errorResponse.setCode(PASSWORD_HASHING_UNAVAILABLE);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(SignInThrottledException.class)
+    public ResponseEntity<ErrorResponse> signInThrottled(HttpServletRequest httpServletRequest) {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setMessage(errorMessages.get("error.signInThrottledProblem", httpServletRequest.getLocale()));
+        errorResponse.setSuggestion(errorMessages.get("error.signInThrottledSuggestion",
+                httpServletRequest.getLocale()));
+        errorResponse.setCode(SIGN_IN_THROTTLED);
+        errorResponse.setPath(httpServletRequest.getRequestURI());
+        return new ResponseEntity<>(errorResponse, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @Override
     protected ResponseEntity<Object>
     handleMethodArgumentNotValid(MethodArgumentNotValidException exception,
@@ -132,9 +247,8 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
             JsonMappingException jsonMappingException = (JsonMappingException) cause;
             if (jsonMappingException.getPath().isEmpty()) {
                 errorResponse.setCode(REQUEST_BODY_VALIDATION);
-                errorResponse.setMessage(replaceFullClassNameWithSimpleClassName(cause.getMessage()));
-                errorResponse.setSuggestion(messageSource.getMessage("suggestion.requestBodyValidation",
-                        null, request.getLocale()));
+                errorResponse.setMessage(ClassNameScrubber.scrub(cause.getMessage()));
+                errorResponse.setSuggestion(errorMessages.get("suggestion.requestBodyValidation", request.getLocale()));
                 return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
             } else if (cause instanceof UnrecognizedPropertyException
             || cause instanceof IgnoredPropertyException) {
@@ -154,16 +268,13 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
             }
         } else if (cause instanceof DateTimeException) {
             errorResponse.setCode(DATETIME_VALIDATION);
-            errorResponse.setMessage(messageSource.getMessage("error.datetimeValidation",
-                    null, request.getLocale()));
-            errorResponse.setSuggestion(messageSource.getMessage("suggestion.datetimeValidation",
-                    null, request.getLocale()));
+            errorResponse.setMessage(errorMessages.get("error.datetimeValidation", request.getLocale()));
+            errorResponse.setSuggestion(errorMessages.get("suggestion.datetimeValidation", request.getLocale()));
             return new ResponseEntity<>(errorResponse, HttpStatus.UNPROCESSABLE_ENTITY);
         } else if (cause instanceof JsonParseException) {
             errorResponse.setCode(REQUEST_BODY_VALIDATION);
-            errorResponse.setMessage(replaceFullClassNameWithSimpleClassName(cause.getMessage()));
-            errorResponse.setSuggestion(messageSource.getMessage("suggestion.requestBodyValidation",
-                    null, request.getLocale()));
+            errorResponse.setMessage(ClassNameScrubber.scrub(cause.getMessage()));
+            errorResponse.setSuggestion(errorMessages.get("suggestion.requestBodyValidation", request.getLocale()));
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         } else {
            return super.handleHttpMessageNotReadable(ex, headers, status, request);
@@ -185,23 +296,7 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
-    private String replaceFullClassNameWithSimpleClassName(String message) {
-        if (doesContainFullyQualifiedClassName(message)) {
-            Map<String, String> replacements = new HashMap<>();
-            Matcher matcher = Pattern.compile("[a-zA-Z_]\\w*(\\.[a-zA-Z_]\\w*)+").matcher(message);
-            while (matcher.find()) {
-                var fullClassName = message.substring(matcher.start(), matcher.end());
-                var simpleClassName = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
-                replacements.put(fullClassName, simpleClassName);
-            }
-            for (Map.Entry<String, String> entry: replacements.entrySet()) {
-                message = message.replace(entry.getKey(), entry.getValue());
-            }
-        }
-        return message;
-    }
-
-    private boolean doesContainFullyQualifiedClassName(String message) {
-        return !message.matches(REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE);
+    private static ResponseEntity<byte[]> preEncoded(byte[] body, HttpStatus status) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
@@ -0,0 +1,188 @@
+package com.ahmedsameha1.todo.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Sends the emails from a bounded queue on a fixed number of workers
+// A worker takes up to batchSize queued messages and sends them over one SMTP connection,
+// the messages that fail are retried with an exponential backoff
+// When the queue stays full for offerTimeout, dispatch gives up and returns false
+// onSent runs on the worker right after its message was accepted by the SMTP server
+@Slf4j
+@Component
+public class MailDispatcher {
+    public static final String METRIC_PREFIX = "mail.dispatch";
+
+    private final JavaMailSender javaMailSender;
+    private final BlockingQueue<Envelope> queue;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration offerTimeout;
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private volatile boolean running = true;
+
+    public MailDispatcher(JavaMailSender javaMailSender, MeterRegistry meterRegistry,
+                          @Value("${mail.dispatch.queue-capacity:1000}") int queueCapacity,
+                          @Value("${mail.dispatch.workers:2}") int workerCount,
+                          @Value("${mail.dispatch.batch-size:20}") int batchSize,
+                          @Value("${mail.dispatch.max-attempts:3}") int maxAttempts,
+                          @Value("${mail.dispatch.backoff:PT1S}") Duration backoff,
+                          @Value("${mail.dispatch.offer-timeout:PT1S}") Duration offerTimeout) {
+        this.javaMailSender = javaMailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.offerTimeout = offerTimeout;
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        sendTimer = Timer.builder(METRIC_PREFIX + ".send").register(meterRegistry);
+        sentCounter = meterRegistry.counter(METRIC_PREFIX + ".sent");
+        failedCounter = meterRegistry.counter(METRIC_PREFIX + ".failed");
+        rejectedCounter = meterRegistry.counter(METRIC_PREFIX + ".rejected");
+        workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("mail-dispatch-"));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    public boolean dispatch(SimpleMailMessage message) {
+        return dispatch(message, () -> {
+        });
+    }
+
+    public boolean dispatch(SimpleMailMessage message, Runnable onSent) {
+        try {
+            if (running && queue.offer(new Envelope(message, onSent), offerTimeout.toMillis(),
+                    TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // The queued messages are still sent before the workers stop
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work() {
+        var batch = new ArrayList<Envelope>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var envelope = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (envelope == null) {
+                    continue;
+                }
+                batch.add(envelope);
+                queue.drainTo(batch, batchSize - 1);
+                send(batch);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Envelope> batch) throws InterruptedException {
+        var pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            var failed = trySend(pending);
+            sentCounter.increment(pending.size() - failed.size());
+            for (var envelope : pending) {
+                if (!failed.contains(envelope)) {
+                    notifySent(envelope);
+                }
+            }
+            if (failed.isEmpty()) {
+                return;
+            }
+            if (attempt == maxAttempts) {
+                failedCounter.increment(failed.size());
+                log.error("Giving up on {} emails after {} attempts", failed.size(), attempt);
+                return;
+            }
+            pending = failed;
+            Thread.sleep(backoff.toMillis() << (attempt - 1));
+        }
+    }
+
+    // Returns the envelopes whose messages weren't sent
+    private List<Envelope> trySend(List<Envelope> envelopes) {
+        var sample = Timer.start();
+        try {
+            javaMailSender.send(envelopes.stream().map(Envelope::getMessage).toArray(SimpleMailMessage[]::new));
+            return List.of();
+        } catch (MailSendException exception) {
+            log.warn("Sending {} emails failed: {}", envelopes.size(), exception.getMessage());
+            var failedMessages = exception.getFailedMessages();
+            var failed = envelopes.stream()
+                    .filter(envelope -> failedMessages.containsKey(envelope.getMessage()))
+                    .collect(Collectors.toList());
+            return failed.isEmpty() ? envelopes : failed;
+        } catch (MailException exception) {
+            log.warn("Sending {} emails failed: {}", envelopes.size(), exception.getMessage());
+            return envelopes;
+        } finally {
+            sample.stop(sendTimer);
+        }
+    }
+
+    private void notifySent(Envelope envelope) {
+        try {
+            envelope.getOnSent().run();
+        } catch (RuntimeException exception) {
+            log.error("Handling a sent email failed", exception);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Envelope {
+        private final SimpleMailMessage message;
+        private final Runnable onSent;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ahmedsameha1.todo.repository;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationOutboxEntry;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailVerificationOutboxRepository extends JpaRepository<EmailVerificationOutboxEntry, UUID> {
+    boolean existsByUserAccountAndAttempts(UserAccount userAccount, int attempts);
+
+    // The rows locked by another relay are skipped, so several nodes never claim the same row
+    // A claim that isn't released or deleted expires at claimedUntil and the row is claimed again,
+    // until it was claimed maxAttempts times
+    @Query(value = "update email_verification_outbox set claimed_until = :claimedUntil, attempts = attempts + 1"
+            + " where id in (select id from email_verification_outbox"
+            + " where (claimed_until is null or claimed_until < :now) and attempts < :maxAttempts"
+            + " order by creation_time limit :batchSize for update skip locked) returning *", nativeQuery = true)
+    List<EmailVerificationOutboxEntry> claim(@Param("now") LocalDateTime now,
+                                             @Param("claimedUntil") LocalDateTime claimedUntil,
+                                             @Param("maxAttempts") int maxAttempts,
+                                             @Param("batchSize") int batchSize);
+
+    @Transactional
+    @Modifying
+    // The attempt stays counted, giving it back could make two unclaimed entries of the same UserAccount
+    @Query("update EmailVerificationOutboxEntry e set e.claimedUntil = null where e.id = :id")
+    int releaseClaim(@Param("id") UUID id);
+}
@@ -3,10 +3,23 @@ package com.ahmedsameha1.todo.repository;
 import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
 import com.ahmedsameha1.todo.domain_model.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface EmailVerificationTokenRepository extends JpaRepository<EmailVerificationToken, UUID> {
-    EmailVerificationToken findByToken(UUID token);
+    // Takes EmailVerificationToken.hash of the token
+    EmailVerificationToken findByTokenHash(byte[] tokenHash);
     EmailVerificationToken findByUserAccount(UserAccount userAccount);
+
+    // Deletes one batch of the expired tokens, oldest first, following the expires_at index
+    @Transactional
+    @Modifying
+    @Query(value = "delete from email_verification_token where id in (select id from email_verification_token"
+            + " where expires_at < :now order by expires_at limit :batchSize)", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
 }
@@ -3,10 +3,28 @@ package com.ahmedsameha1.todo.repository;
 import com.ahmedsameha1.todo.domain_model.PasswordResetToken;
 import com.ahmedsameha1.todo.domain_model.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, UUID> {
-    PasswordResetToken findByToken(String token);
+    PasswordResetToken findByToken(UUID token);
     PasswordResetToken findByUserAccount(UserAccount userAccount);
+
+    // Of two concurrent resets with the same token only one deletes it
+    @Transactional
+    @Modifying
+    @Query("delete from PasswordResetToken t where t.token = :token")
+    int deleteByTokenValue(@Param("token") UUID token);
+
+    // Deletes one batch of the expired tokens, oldest first, following the expires_at index
+    @Transactional
+    @Modifying
+    @Query(value = "delete from password_reset_token where id in (select id from password_reset_token"
+            + " where expires_at < :now order by expires_at limit :batchSize)", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
 }
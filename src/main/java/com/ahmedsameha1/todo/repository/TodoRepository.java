@@ -1,9 +1,98 @@
 package com.ahmedsameha1.todo.repository;
 
 import com.ahmedsameha1.todo.domain_model.Todo;
+import com.ahmedsameha1.todo.domain_model.TodoSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface TodoRepository extends JpaRepository<Todo, UUID> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+// The pages are ordered by (targetDate, id) and a page starts right after the last row of the previous one,
+// so fetching a page costs the same no matter how deep it is
+public interface TodoRepository extends JpaRepository<Todo, UUID>, TodoRepositoryCustom {
+    String SUMMARY = "select new com.ahmedsameha1.todo.domain_model.TodoSummary"
+            + "(t.id, t.descriptionPreview, t.targetDate, t.done, t.version) from Todo t ";
+    String AFTER = " and (t.targetDate > :targetDate or (t.targetDate = :targetDate and t.id > :id))";
+    String ORDER = " order by t.targetDate, t.id";
+
+    Optional<Todo> findByIdAndUserAccountId(UUID id, UUID userAccountId);
+
+    // Locks the row of the todo until the end of the transaction, so concurrent writes of its description
+    // chunks run one after the other instead of inserting the same positions
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Todo t where t.id = :id and t.userAccount.id = :userAccountId")
+    Optional<Todo> findForUpdateByIdAndUserAccountId(@Param("id") UUID id, @Param("userAccountId") UUID userAccountId);
+
+    List<Todo> findAllByIdInAndUserAccountId(Collection<UUID> ids, UUID userAccountId);
+
+    @Query(SUMMARY + "where t.id = :id and t.userAccount.id = :userAccountId")
+    Optional<TodoSummary> findSummaryByIdAndUserAccountId(@Param("id") UUID id,
+                                                          @Param("userAccountId") UUID userAccountId);
+
+    @Query("select t.body.id from Todo t where t.id = :id and t.userAccount.id = :userAccountId")
+    Optional<UUID> findDescriptionIdByIdAndUserAccountId(@Param("id") UUID id,
+                                                         @Param("userAccountId") UUID userAccountId);
+
+    // The description is read and written one chunk at a time, so it is never held in memory as a whole
+    // A small fetch size makes the driver use a cursor instead of reading every row up front
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "4"))
+    @Query(value = "select content from todo_description_chunk where description_id = :descriptionId"
+            + " order by position", nativeQuery = true)
+    Stream<String> streamDescriptionChunks(@Param("descriptionId") UUID descriptionId);
+
+    @Modifying
+    @Query(value = "insert into todo_description_chunk (description_id, position, content)"
+            + " values (:descriptionId, :position, :content)", nativeQuery = true)
+    int insertDescriptionChunk(@Param("descriptionId") UUID descriptionId, @Param("position") int position,
+                               @Param("content") String content);
+
+    @Modifying
+    @Query(value = "delete from todo_description_chunk where description_id = :descriptionId", nativeQuery = true)
+    int deleteDescriptionChunks(@Param("descriptionId") UUID descriptionId);
+
+    // The chunks go with their descriptions, the todos referencing them must be deleted first
+    @Modifying
+    @Query(value = "delete from todo_description where id in (:ids)", nativeQuery = true)
+    int deleteDescriptions(@Param("ids") Collection<UUID> ids);
+
+    @Query(SUMMARY + "where t.userAccount.id = :userAccountId" + ORDER)
+    List<TodoSummary> findFirstPage(@Param("userAccountId") UUID userAccountId, Pageable pageable);
+
+    @Query(SUMMARY + "where t.userAccount.id = :userAccountId" + AFTER + ORDER)
+    List<TodoSummary> findPageAfter(@Param("userAccountId") UUID userAccountId,
+                                    @Param("targetDate") LocalDate targetDate, @Param("id") UUID id,
+                                    Pageable pageable);
+
+    @Query(SUMMARY + "where t.userAccount.id = :userAccountId and t.done = :done" + ORDER)
+    List<TodoSummary> findFirstPageByDone(@Param("userAccountId") UUID userAccountId,
+                                          @Param("done") boolean done, Pageable pageable);
+
+    @Query(SUMMARY + "where t.userAccount.id = :userAccountId and t.done = :done" + AFTER + ORDER)
+    List<TodoSummary> findPageAfterByDone(@Param("userAccountId") UUID userAccountId,
+                                          @Param("done") boolean done,
+                                          @Param("targetDate") LocalDate targetDate, @Param("id") UUID id,
+                                          Pageable pageable);
+
+    // The description is deleted in the same statement, Postgres checks the foreign key at its end
+    @Transactional
+    @Modifying
+    @Query(value = "with deleted as (delete from todo where id = :id and user_account_id = :userAccountId"
+            + " returning description_id) delete from todo_description where id in"
+            + " (select description_id from deleted)", nativeQuery = true)
+    int deleteByIdAndUserAccountId(@Param("id") UUID id, @Param("userAccountId") UUID userAccountId);
 }
@@ -0,0 +1,9 @@
+package com.ahmedsameha1.todo.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface TodoRepositoryCustom {
+    // Replaces the chunks of every description with one delete and one batch of inserts
+    void replaceDescriptions(Map<UUID, String> descriptionsById);
+}
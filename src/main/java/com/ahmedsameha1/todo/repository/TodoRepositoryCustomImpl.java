@@ -0,0 +1,32 @@
+package com.ahmedsameha1.todo.repository;
+
+import com.ahmedsameha1.todo.domain_model.TodoDescription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+public class TodoRepositoryCustomImpl implements TodoRepositoryCustom {
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void replaceDescriptions(Map<UUID, String> descriptionsById) {
+        if (descriptionsById.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.update("delete from todo_description_chunk where description_id in (:ids)",
+                Map.of("ids", descriptionsById.keySet()));
+        var rows = new ArrayList<Object[]>();
+        descriptionsById.forEach((descriptionId, description) -> {
+            var chunks = TodoDescription.chunksOf(description);
+            for (int position = 0; position < chunks.size(); position++) {
+                rows.add(new Object[]{descriptionId, position, chunks.get(position)});
+            }
+        });
+        namedParameterJdbcTemplate.getJdbcOperations().batchUpdate(
+                "insert into todo_description_chunk (description_id, position, content) values (?, ?, ?)", rows);
+    }
+}
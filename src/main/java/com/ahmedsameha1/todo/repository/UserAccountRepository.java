@@ -2,9 +2,85 @@ package com.ahmedsameha1.todo.repository;
 
 import com.ahmedsameha1.todo.domain_model.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface UserAccountRepository extends JpaRepository<UserAccount, UUID> {
     UserAccount findByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    // A fetch size makes the driver use a cursor instead of reading every username up front
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.username from UserAccount u")
+    Stream<String> streamUsernames();
+
+    @Query("select u.tokenVersion from UserAccount u where u.id = :id")
+    Integer findTokenVersionById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update UserAccount u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int incrementTokenVersion(@Param("id") UUID id);
+
+    // Enables the UserAccount of a token that hasn't expired and deletes the token, in one statement
+    // Of two concurrent calls with the same token only one finds the token to delete
+    // Returns the username of the enabled UserAccount, empty when the token is unknown, used or expired
+    // Takes EmailVerificationToken.hash of the token, one probe of the unique token_hash index
+    @Transactional
+    @Query(value = "with used_token as (delete from email_verification_token"
+            + " where token_hash = :tokenHash and expires_at >= :now returning user_account_id)"
+            + " update user_account set enabled = true, version = version + 1, update_time = :now"
+            + " from used_token where user_account.id = used_token.user_account_id"
+            + " returning user_account.username", nativeQuery = true)
+    Optional<String> enableByEmailVerificationToken(@Param("tokenHash") byte[] tokenHash,
+                                                    @Param("now") LocalDateTime now);
+
+    // A new password also unlocks a UserAccount
+    @Transactional
+    @Modifying
+    @Query("update UserAccount u set u.password = :password, u.locked = false, u.lockedUntil = null"
+            + " where u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
+
+    // Re-encodes the hash only if it is still the one the sign in checked, so a concurrent reset isn't undone
+    // Only the password is written, the loaded UserAccount may hold a stale lock or token version
+    @Transactional
+    @Modifying
+    @Query("update UserAccount u set u.password = :password where u.id = :id and u.password = :oldPassword")
+    int upgradePassword(@Param("id") UUID id, @Param("oldPassword") String oldPassword,
+                        @Param("password") String password);
+
+    @Transactional
+    @Modifying
+    @Query("update UserAccount u set u.lockedUntil = :lockedUntil where u.id = :id")
+    int lockUntil(@Param("id") UUID id, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    // Deletes one batch of the UserAccounts that were never enabled, were created before createdBefore
+    // and have no email verification token that can still be used, together with their tokens
+    // The foreign keys are checked at the end of the statement, after every part of it ran
+    @Transactional
+    @Modifying
+    @Query(value = "with stale as (select u.id from user_account u where u.enabled = false"
+            + " and u.creation_time < :createdBefore and not exists (select 1 from email_verification_token t"
+            + " where t.user_account_id = u.id and t.expires_at >= :now)"
+            + " order by u.creation_time limit :batchSize),"
+            + " deleted_email_verification_tokens as (delete from email_verification_token"
+            + " where user_account_id in (select id from stale)),"
+            + " deleted_password_reset_tokens as (delete from password_reset_token"
+            + " where user_account_id in (select id from stale))"
+            + " delete from user_account where id in (select id from stale)", nativeQuery = true)
+    int deleteNeverEnabled(@Param("createdBefore") LocalDateTime createdBefore, @Param("now") LocalDateTime now,
+                           @Param("batchSize") int batchSize);
 }
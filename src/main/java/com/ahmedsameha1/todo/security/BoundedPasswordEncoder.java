@@ -0,0 +1,107 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs the hashing of the wrapped PasswordEncoder on a fixed number of workers with a bounded queue,
+// so a burst of sign ins or sign ups can't take every request thread
+// When the queue is full the caller gets a PasswordHashingUnavailableException right away instead of waiting
+// The time a hash waited in the queue and the time it took are recorded separately
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    public static final String METRIC_PREFIX = "password.encoder";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeWaitTimer;
+    private final Timer encodeHashTimer;
+    private final Timer matchesWaitTimer;
+    private final Timer matchesHashTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder passwordEncoder, int workerCount, int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-encoder-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        encodeWaitTimer = timer(meterRegistry, ".queue.wait", "encode");
+        encodeHashTimer = timer(meterRegistry, ".hash", "encode");
+        matchesWaitTimer = timer(meterRegistry, ".queue.wait", "matches");
+        matchesHashTimer = timer(meterRegistry, ".hash", "matches");
+        rejectedCounter = meterRegistry.counter(METRIC_PREFIX + ".rejected");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String operation) {
+        return Timer.builder(METRIC_PREFIX + name).tag("operation", operation).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeWaitTimer, encodeHashTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesWaitTimer, matchesHashTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // Only reads the prefix and the cost of the hash, so it runs on the caller
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer waitTimer, Timer hashTimer, Supplier<T> hash) {
+        var submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(hash);
+            });
+        } catch (RejectedExecutionException exception) {
+            rejectedCounter.increment();
+            throw new PasswordHashingUnavailableException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException();
+        } catch (ExecutionException exception) {
+            var cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package com.ahmedsameha1.todo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.regex.Pattern;
+
+// The address of the client that SignInThrottle counts the failures of
+// Behind a load balancer the remote address is the one of the proxy, so the client is read from X-Forwarded-For:
+// the last address in it that isn't one of the trusted proxies, the ones before could be sent by the client itself
+// With no trusted proxies, the default, the header is ignored and the remote address is the client
+@Component
+public class ClientAddressResolver {
+    static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final Pattern trustedProxies;
+
+    public ClientAddressResolver(@Value("${client-address.trusted-proxies:}") String trustedProxies) {
+        this.trustedProxies = trustedProxies.isBlank() ? null : Pattern.compile(trustedProxies);
+    }
+
+    public String resolve(HttpServletRequest httpServletRequest) {
+        var remoteAddress = httpServletRequest.getRemoteAddr();
+        if (trustedProxies == null || !trustedProxies.matcher(remoteAddress).matches()) {
+            return remoteAddress;
+        }
+        var forwardedFor = httpServletRequest.getHeader(FORWARDED_FOR_HEADER);
+        if (forwardedFor == null) {
+            return remoteAddress;
+        }
+        var addresses = forwardedFor.split(",");
+        var client = remoteAddress;
+        for (int i = addresses.length - 1; i >= 0; i--) {
+            client = addresses[i].strip();
+            if (!trustedProxies.matcher(client).matches()) {
+                break;
+            }
+        }
+        return client.isEmpty() ? remoteAddress : client;
+    }
+}
@@ -1,71 +1,105 @@
 package com.ahmedsameha1.todo.security;
 
+import com.ahmedsameha1.todo.domain_model.UserAccount;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
 
 import static com.ahmedsameha1.todo.Constants.AUTHORIZATION;
 import static com.ahmedsameha1.todo.Constants.TOKEN_PREFIX;
+import static com.ahmedsameha1.todo.security.JwtTokenCodec.TOKEN_VERSION_CLAIM;
 
-public class JwtAuthorizationFilter extends BasicAuthenticationFilter {
-    @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+public class JwtAuthorizationFilter extends OncePerRequestFilter {
+    // It has no state, so one instance serves every request
+    private static final WebAuthenticationDetailsSource AUTHENTICATION_DETAILS_SOURCE =
+            new WebAuthenticationDetailsSource();
 
-    @Value("${jwt.token.secret}")
-    private String secretKey;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final PrincipalCache principalCache;
+    private final JwtTokenCodec jwtTokenCodec;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    // In the stateless mode the principal is built from the token claims instead of loading the UserAccount
+    private final boolean stateless;
 
-    public JwtAuthorizationFilter(AuthenticationManager authenticationManager) {
-        super(authenticationManager);
+    public JwtAuthorizationFilter(UserDetailsServiceImpl userDetailsService, PrincipalCache principalCache,
+                                  JwtTokenCodec jwtTokenCodec, TokenVersionRegistry tokenVersionRegistry,
+                                  boolean stateless) {
+        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.jwtTokenCodec = jwtTokenCodec;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.stateless = stateless;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain chain) throws IOException, ServletException {
+        Authentication authentication = authenticate(request);
+        if (authentication != null) {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Authentication authenticate(HttpServletRequest request) {
         String authorizationHeader = request.getHeader(AUTHORIZATION);
-        if (authorizationHeader != null && authorizationHeader.startsWith(TOKEN_PREFIX)) {
-           try {
-               String jwt = authorizationHeader.replace(TOKEN_PREFIX,"");
-               Jws<Claims> claimsJws = Jwts.parserBuilder().setSigningKey(secretKey).build()
-                       .parseClaimsJws(jwt);
-               Claims claims = claimsJws.getBody();
-               LocalDateTime expiration = claims.getExpiration().toInstant().atOffset(OffsetDateTime.now().getOffset()).toLocalDateTime();
-               if (LocalDateTime.now().isBefore(expiration)) {
-                   String username = claims.getSubject();
-                   if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                       UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                               new UsernamePasswordAuthenticationToken(userDetailsService
-                               .loadUserByUsername(username), null);
-                       usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                       SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-                       chain.doFilter(request, response);
-                   } else {
-                       super.doFilterInternal(request, response, chain);
-                   }
-               } else {
-                   super.doFilterInternal(request, response, chain);
-               }
-           } catch (JwtException e) {
-               super.doFilterInternal(request, response, chain);
-           }
-        } else {
-            super.doFilterInternal(request, response, chain);
+        if (authorizationHeader == null || !authorizationHeader.startsWith(TOKEN_PREFIX)
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            return null;
+        }
+        UserDetails principal;
+        try {
+            // The parser already rejects an expired token, a token without an expiration is rejected here
+            Claims claims = jwtTokenCodec.decode(authorizationHeader.substring(TOKEN_PREFIX.length()));
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                return null;
+            }
+            principal = stateless ? JwtPrincipal.of(claims) : loadUser(claims.getSubject());
+            if (!isUsable(principal, claims)) {
+                return null;
+            }
+        } catch (JwtException | UsernameNotFoundException e) {
+            return null;
+        }
+        var authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authentication.setDetails(AUTHENTICATION_DETAILS_SOURCE.buildDetails(request));
+        return authentication;
+    }
+
+    private boolean isUsable(UserDetails principal, Claims claims) {
+        // The lock of SignInThrottle only refuses signing in, a UserAccount it locked keeps its JWTs
+        var locked = principal instanceof UserAccount ? ((UserAccount) principal).isLocked()
+                : !principal.isAccountNonLocked();
+        if (!principal.isEnabled() || locked) {
+            return false;
+        }
+        if (principal instanceof JwtPrincipal) {
+            var jwtPrincipal = (JwtPrincipal) principal;
+            return tokenVersionRegistry.isCurrent(jwtPrincipal.getId(), jwtPrincipal.getTokenVersion());
         }
+        // Tokens that were issued before the token version claim existed are of version 0
+        var tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return (tokenVersion == null ? 0 : tokenVersion) >= ((UserAccount) principal).getTokenVersion();
     }
 
+    private UserDetails loadUser(String username) {
+        UserDetails userDetails = principalCache.getUserFromCache(username);
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(username);
+            principalCache.putUserInCache(userDetails);
+        }
+        return userDetails;
+    }
 }
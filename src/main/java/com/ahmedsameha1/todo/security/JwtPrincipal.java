@@ -0,0 +1,68 @@
+package com.ahmedsameha1.todo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+
+import static com.ahmedsameha1.todo.security.JwtTokenCodec.*;
+
+// A principal that is built only from the signed claims of a JWT, no UserAccount is loaded for it
+@Getter
+public class JwtPrincipal implements UserDetails {
+    private final UUID id;
+    private final String username;
+    private final boolean enabled;
+    private final boolean locked;
+    private final int tokenVersion;
+
+    public JwtPrincipal(UUID id, String username, boolean enabled, boolean locked, int tokenVersion) {
+        this.id = id;
+        this.username = username;
+        this.enabled = enabled;
+        this.locked = locked;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public static JwtPrincipal of(Claims claims) {
+        var id = claims.get(USER_ACCOUNT_ID_CLAIM, String.class);
+        var enabled = claims.get(ENABLED_CLAIM, Boolean.class);
+        var locked = claims.get(LOCKED_CLAIM, Boolean.class);
+        var tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        if (id == null || claims.getSubject() == null || enabled == null || locked == null
+                || tokenVersion == null) {
+            throw new MalformedJwtException("The token doesn't have the claims of a stateless principal");
+        }
+        return new JwtPrincipal(UUID.fromString(id), claims.getSubject(), enabled, locked, tokenVersion);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return !locked;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+}
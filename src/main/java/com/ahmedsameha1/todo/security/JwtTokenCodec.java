@@ -0,0 +1,47 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+// The signing key and the parser are immutable and thread-safe,
+// so they are built once and shared by the sign in and by every authorized request
+@Component
+public class JwtTokenCodec {
+    public static final String USER_ACCOUNT_ID_CLAIM = "uid";
+    public static final String ENABLED_CLAIM = "enabled";
+    public static final String LOCKED_CLAIM = "locked";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final SecretKey secretKey;
+    private final JwtParser jwtParser;
+
+    public JwtTokenCodec(@Value("${jwt.token.secret}") String secret) {
+        secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        jwtParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+    }
+
+    public String encode(UserAccount userAccount, Date expiration) {
+        return Jwts.builder()
+                .setSubject(userAccount.getUsername())
+                .claim(USER_ACCOUNT_ID_CLAIM, userAccount.getId().toString())
+                .claim(ENABLED_CLAIM, userAccount.isEnabled())
+                .claim(LOCKED_CLAIM, userAccount.isLocked())
+                .claim(TOKEN_VERSION_CLAIM, userAccount.getTokenVersion())
+                .setExpiration(expiration)
+                .signWith(secretKey).compact();
+    }
+
+    public Claims decode(String jwt) throws JwtException {
+        return jwtParser.parseClaimsJws(jwt).getBody();
+    }
+}
@@ -0,0 +1,22 @@
+package com.ahmedsameha1.todo.security;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.UUID;
+
+// The password has the constraints of UserAccount.password, which can only check the hash once it is encoded
+@Setter @Getter
+public class NewPasswordRequest {
+    @NotNull
+    private UUID token;
+
+    @NotBlank
+    @Size(min = 8, max = 255)
+    @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)\\S{8,}$")
+    private String password;
+}
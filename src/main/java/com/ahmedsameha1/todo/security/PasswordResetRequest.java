@@ -0,0 +1,12 @@
+package com.ahmedsameha1.todo.security;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotBlank;
+
+@Setter @Getter
+public class PasswordResetRequest {
+    @NotBlank
+    private String username;
+}
@@ -0,0 +1,66 @@
+package com.ahmedsameha1.todo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// Counts the password reset requests of each username and of each remote address over a sliding window,
+// so the reset email of a UserAccount can't be sent, and its token replaced, as often as anyone likes
+// A refused request is dropped without telling the client, the endpoint answers the same whatever happens
+// It runs before the UserAccount is looked up, so unknown usernames are counted too
+@Component
+public class PasswordResetThrottle {
+    public static final String METRIC_PREFIX = "password-reset.throttle";
+
+    private final int usernameLimit;
+    private final int remoteAddressLimit;
+    private final long slotNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, SlidingWindowCounter> usernameRequests;
+    private final Cache<String, SlidingWindowCounter> remoteAddressRequests;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordResetThrottle(MeterRegistry meterRegistry,
+                                 @Value("${password-reset.throttle.window:PT1H}") Duration window,
+                                 @Value("${password-reset.throttle.username-limit:3}") int usernameLimit,
+                                 @Value("${password-reset.throttle.remote-address-limit:20}") int remoteAddressLimit,
+                                 @Value("${password-reset.throttle.maximum-size:100000}") long maximumSize) {
+        this(meterRegistry, window, usernameLimit, remoteAddressLimit, maximumSize, System::nanoTime);
+    }
+
+    PasswordResetThrottle(MeterRegistry meterRegistry, Duration window, int usernameLimit, int remoteAddressLimit,
+                          long maximumSize, LongSupplier nanoClock) {
+        this.usernameLimit = usernameLimit;
+        this.remoteAddressLimit = remoteAddressLimit;
+        this.slotNanos = Math.max(1, window.toNanos() / SlidingWindowCounter.SLOTS);
+        var origin = nanoClock.getAsLong();
+        this.nanoClock = () -> nanoClock.getAsLong() - origin;
+        usernameRequests = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(window).build();
+        remoteAddressRequests = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(window).build();
+        rejectedCounter = meterRegistry.counter(METRIC_PREFIX + ".rejected");
+    }
+
+    // Records the request and tells whether it is within the limits
+    public boolean tryAcquire(String username, String remoteAddress) {
+        var now = nanoClock.getAsLong();
+        var remoteAddressCount = remoteAddressRequests.get(remoteAddress, this::newCounter).increment(now);
+        var usernameCount = usernameRequests.get(username, this::newCounter).increment(now);
+        if (remoteAddressCount > remoteAddressLimit || usernameCount > usernameLimit) {
+            rejectedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private SlidingWindowCounter newCounter(String key) {
+        return new SlidingWindowCounter(slotNanos);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.exception.SignInThrottledException;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+// Counts the failed sign ins of each username and of each remote address over a sliding window,
+// so abusive traffic is rejected before any password is hashed
+// A UserAccount is locked for lockDuration when its username reaches usernameLimit failures
+// Anyone can cause that lock, so it expires and the issued JWTs stay valid
+// The windows live in bounded caches and are dropped after a window without failures
+@Component
+public class SignInThrottle {
+    public static final String METRIC_PREFIX = "sign-in.throttle";
+
+    private final UserAccountRepository userAccountRepository;
+    private final int usernameLimit;
+    private final int remoteAddressLimit;
+    private final Duration lockDuration;
+    private final long slotNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, SlidingWindowCounter> usernameFailures;
+    private final Cache<String, SlidingWindowCounter> remoteAddressFailures;
+    private final Counter rejectedCounter;
+    private final Counter lockedCounter;
+
+    @Autowired
+    public SignInThrottle(UserAccountRepository userAccountRepository, MeterRegistry meterRegistry,
+                          @Value("${sign-in.throttle.window:PT15M}") Duration window,
+                          @Value("${sign-in.throttle.username-limit:10}") int usernameLimit,
+                          @Value("${sign-in.throttle.remote-address-limit:100}") int remoteAddressLimit,
+                          @Value("${sign-in.throttle.lock-duration:PT15M}") Duration lockDuration,
+                          @Value("${sign-in.throttle.maximum-size:100000}") long maximumSize) {
+        this(userAccountRepository, meterRegistry, window, usernameLimit, remoteAddressLimit, lockDuration,
+                maximumSize, System::nanoTime);
+    }
+
+    SignInThrottle(UserAccountRepository userAccountRepository, MeterRegistry meterRegistry, Duration window,
+                   int usernameLimit, int remoteAddressLimit, Duration lockDuration, long maximumSize,
+                   LongSupplier nanoClock) {
+        this.userAccountRepository = userAccountRepository;
+        this.usernameLimit = usernameLimit;
+        this.remoteAddressLimit = remoteAddressLimit;
+        this.lockDuration = lockDuration;
+        this.slotNanos = Math.max(1, window.toNanos() / SlidingWindowCounter.SLOTS);
+        var origin = nanoClock.getAsLong();
+        this.nanoClock = () -> nanoClock.getAsLong() - origin;
+        usernameFailures = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(window).build();
+        remoteAddressFailures = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(window).build();
+        rejectedCounter = meterRegistry.counter(METRIC_PREFIX + ".rejected");
+        lockedCounter = meterRegistry.counter(METRIC_PREFIX + ".locked");
+    }
+
+    public void checkAllowed(String username, String remoteAddress) {
+        var now = nanoClock.getAsLong();
+        if (count(usernameFailures, username, now) >= usernameLimit
+                || count(remoteAddressFailures, remoteAddress, now) >= remoteAddressLimit) {
+            rejectedCounter.increment();
+            throw new SignInThrottledException();
+        }
+    }
+
+    public void recordFailure(String username, String remoteAddress) {
+        var now = nanoClock.getAsLong();
+        remoteAddressFailures.get(remoteAddress, this::newCounter).increment(now);
+        // Concurrent failures can pass the limit without any of them seeing it exactly, locking again is a no op
+        if (usernameFailures.get(username, this::newCounter).increment(now) >= usernameLimit) {
+            lock(username);
+        }
+    }
+
+    public void recordSuccess(String username) {
+        usernameFailures.invalidate(username);
+    }
+
+    private SlidingWindowCounter newCounter(String key) {
+        return new SlidingWindowCounter(slotNanos);
+    }
+
+    private int count(Cache<String, SlidingWindowCounter> failures, String key, long now) {
+        var failureCounter = failures.getIfPresent(key);
+        return failureCounter == null ? 0 : failureCounter.count(now);
+    }
+
+    private void lock(String username) {
+        var userAccount = userAccountRepository.findByUsername(username);
+        if (userAccount != null && userAccount.isAccountNonLocked()) {
+            userAccountRepository.lockUntil(userAccount.getId(), LocalDateTime.now().plus(lockDuration));
+            lockedCounter.increment();
+        }
+    }
+}
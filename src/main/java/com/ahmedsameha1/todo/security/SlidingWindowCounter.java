@@ -0,0 +1,43 @@
+package com.ahmedsameha1.todo.security;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts the events of a sliding window in SLOTS slots, a slot is reused once it is older than the window
+// It is lock free, an event recorded while its slot is being reused can be lost
+class SlidingWindowCounter {
+    static final int SLOTS = 10;
+
+    private final long slotNanos;
+    private final AtomicLongArray slotIndexes = new AtomicLongArray(SLOTS);
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(SLOTS);
+
+    SlidingWindowCounter(long slotNanos) {
+        this.slotNanos = slotNanos;
+        for (int i = 0; i < SLOTS; i++) {
+            slotIndexes.set(i, -SLOTS);
+        }
+    }
+
+    int increment(long now) {
+        var slotIndex = now / slotNanos;
+        var i = (int) (slotIndex % SLOTS);
+        var current = slotIndexes.get(i);
+        if (current != slotIndex && slotIndexes.compareAndSet(i, current, slotIndex)) {
+            counts.set(i, 0);
+        }
+        counts.incrementAndGet(i);
+        return count(now);
+    }
+
+    int count(long now) {
+        var slotIndex = now / slotNanos;
+        var count = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotIndex - slotIndexes.get(i) < SLOTS) {
+                count += counts.get(i);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+// Knows the current token version of each UserAccount, so a JWT can be checked against revocation
+// without loading the UserAccount. A version is read from the database at most once per time to live,
+// so a revocation made on another node is seen here after that time at most
+@Component
+public class TokenVersionRegistry {
+    private final UserAccountRepository userAccountRepository;
+    private final PrincipalCache principalCache;
+    private final LoadingCache<UUID, Integer> tokenVersions;
+
+    public TokenVersionRegistry(UserAccountRepository userAccountRepository, PrincipalCache principalCache,
+                                @Value("${jwt.token-version.cache.maximum-size:10000}") long maximumSize,
+                                @Value("${jwt.token-version.cache.time-to-live:PT1M}") Duration timeToLive) {
+        this.userAccountRepository = userAccountRepository;
+        this.principalCache = principalCache;
+        tokenVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build(userAccountRepository::findTokenVersionById);
+    }
+
+    public boolean isCurrent(UUID userAccountId, int tokenVersion) {
+        Integer currentTokenVersion = tokenVersions.get(userAccountId);
+        return currentTokenVersion != null && tokenVersion >= currentTokenVersion;
+    }
+
+    public void revokeTokens(UserAccount userAccount) {
+        userAccountRepository.incrementTokenVersion(userAccount.getId());
+        tokenVersions.invalidate(userAccount.getId());
+        principalCache.removeUserFromCache(userAccount.getUsername());
+    }
+}
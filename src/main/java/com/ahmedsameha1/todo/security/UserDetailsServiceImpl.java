@@ -4,15 +4,19 @@ import com.ahmedsameha1.todo.domain_model.UserAccount;
 import com.ahmedsameha1.todo.repository.UserAccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     private UserAccountRepository userAccountRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         UserAccount userAccount = userAccountRepository.findByUsername(username);
@@ -21,4 +25,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         }
         return userAccount;
     }
+
+    // Called by the AuthenticationManager after a successful sign in when the PasswordEncoder
+    // wants the stored hash to be re-encoded, the user is the one that loadUserByUsername returned
+    // Saving that detached user would write back all of its columns, over a concurrent lock or reset
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        var userAccount = (UserAccount) user;
+        if (userAccountRepository.upgradePassword(userAccount.getId(), userAccount.getPassword(), newPassword) == 1) {
+            userAccount.setPassword(newPassword);
+            principalCache.removeUserFromCache(userAccount.getUsername());
+        }
+        return userAccount;
+    }
 }
@@ -1,7 +1,8 @@
 package com.ahmedsameha1.todo.security;
 
-import com.ahmedsameha1.todo.exception.UnsupportedRequestParameterHandlerInterceptor;
+import com.ahmedsameha1.todo.exception.PreDispatchInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +11,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -25,7 +27,22 @@ public class WebSecurityConfigurer extends WebSecurityConfigurerAdapter implemen
     private UserDetailsServiceImpl userDetailsService;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private JwtTokenCodec jwtTokenCodec;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private PreDispatchInterceptor preDispatchInterceptor;
+
+    @Value("${jwt.authorization.stateless:false}")
+    private boolean statelessJwtAuthorization;
 
     @Override
     protected void configure(HttpSecurity httpSecurity) throws Exception {
@@ -38,16 +55,20 @@ public class WebSecurityConfigurer extends WebSecurityConfigurerAdapter implemen
                 .antMatchers(HttpMethod.POST, SIGN_UP_URL).permitAll()
                 .antMatchers(HttpMethod.GET, EMAIL_VERIFICATION_URL).permitAll()
                 .antMatchers(HttpMethod.POST, SIGN_IN_URL).permitAll()
+                .antMatchers(HttpMethod.GET, USERNAME_AVAILABILITY_URL).permitAll()
+                .antMatchers(HttpMethod.POST, PASSWORD_RESET_REQUEST_URL).permitAll()
+                .antMatchers(PASSWORD_RESET_URL).permitAll()
                 ////////////////////////////////////////////////
                 .anyRequest().authenticated().and()
-                .addFilter(new JwtAuthorizationFilter(authenticationManager()))
+                .addFilterAt(new JwtAuthorizationFilter(userDetailsService, principalCache, jwtTokenCodec,
+                        tokenVersionRegistry, statelessJwtAuthorization), BasicAuthenticationFilter.class)
                 // This because we don't use sessions
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     }
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService).passwordEncoder(bCryptPasswordEncoder);
+        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
     }
 
     @Bean
@@ -65,6 +86,6 @@ public class WebSecurityConfigurer extends WebSecurityConfigurerAdapter implemen
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new UnsupportedRequestParameterHandlerInterceptor());
+        registry.addInterceptor(preDispatchInterceptor);
     }
 }
@@ -0,0 +1,85 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.repository.EmailVerificationTokenRepository;
+import com.ahmedsameha1.todo.repository.PasswordResetTokenRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+// Deletes the expired email verification and password reset tokens, and optionally the UserAccounts
+// that were never enabled, in batches of batchSize rows, each batch in its own transaction
+// so no run holds many row locks or a long transaction
+// A UserAccount that is kept after its token is deleted gets a new one when it signs in, see authenticate
+@Slf4j
+@Component
+public class ExpiredTokenSweeper {
+    public static final String METRIC_PREFIX = "token.sweeper";
+
+    private final EmailVerificationTokenRepository emailVerificationTokenRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final UserAccountRepository userAccountRepository;
+    private final int batchSize;
+    private final boolean neverEnabledUserAccountsSwept;
+    private final Duration neverEnabledUserAccountRetention;
+    private final Counter emailVerificationTokenCounter;
+    private final Counter passwordResetTokenCounter;
+    private final Counter userAccountCounter;
+
+    public ExpiredTokenSweeper(EmailVerificationTokenRepository emailVerificationTokenRepository,
+                               PasswordResetTokenRepository passwordResetTokenRepository,
+                               UserAccountRepository userAccountRepository, MeterRegistry meterRegistry,
+                               @Value("${token.sweeper.batch-size:1000}") int batchSize,
+                               @Value("${token.sweeper.never-enabled-user-accounts.enabled:false}")
+                                       boolean neverEnabledUserAccountsSwept,
+                               @Value("${token.sweeper.never-enabled-user-accounts.retention:P7D}")
+                                       Duration neverEnabledUserAccountRetention) {
+        this.emailVerificationTokenRepository = emailVerificationTokenRepository;
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+        this.userAccountRepository = userAccountRepository;
+        this.batchSize = batchSize;
+        this.neverEnabledUserAccountsSwept = neverEnabledUserAccountsSwept;
+        this.neverEnabledUserAccountRetention = neverEnabledUserAccountRetention;
+        emailVerificationTokenCounter = meterRegistry.counter(METRIC_PREFIX + ".deleted",
+                "table", "email_verification_token");
+        passwordResetTokenCounter = meterRegistry.counter(METRIC_PREFIX + ".deleted",
+                "table", "password_reset_token");
+        userAccountCounter = meterRegistry.counter(METRIC_PREFIX + ".deleted", "table", "user_account");
+    }
+
+    @Scheduled(fixedDelayString = "${token.sweeper.interval:PT1H}",
+            initialDelayString = "${token.sweeper.initial-delay:PT1M}")
+    public void sweep() {
+        var now = LocalDateTime.now();
+        var emailVerificationTokens = deleteInBatches(emailVerificationTokenCounter,
+                () -> emailVerificationTokenRepository.deleteExpired(now, batchSize));
+        var passwordResetTokens = deleteInBatches(passwordResetTokenCounter,
+                () -> passwordResetTokenRepository.deleteExpired(now, batchSize));
+        var userAccounts = 0;
+        if (neverEnabledUserAccountsSwept) {
+            var createdBefore = now.minus(neverEnabledUserAccountRetention);
+            userAccounts = deleteInBatches(userAccountCounter,
+                    () -> userAccountRepository.deleteNeverEnabled(createdBefore, now, batchSize));
+        }
+        log.info("Removed {} email verification tokens, {} password reset tokens and {} user accounts",
+                emailVerificationTokens, passwordResetTokens, userAccounts);
+    }
+
+    private int deleteInBatches(Counter counter, IntSupplier deleteBatch) {
+        var total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.getAsInt();
+            counter.increment(deleted);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
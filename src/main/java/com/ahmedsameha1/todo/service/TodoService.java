@@ -0,0 +1,29 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.TodoOperation;
+import com.ahmedsameha1.todo.domain_model.TodoOperationResult;
+import com.ahmedsameha1.todo.domain_model.TodoRequest;
+import com.ahmedsameha1.todo.domain_model.TodoSummary;
+import com.ahmedsameha1.todo.exception.InvalidTodoDescriptionException;
+import com.ahmedsameha1.todo.exception.TodoNotFoundException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface TodoService {
+    TodoSummary createTodo(UUID userAccountId, TodoRequest todoRequest);
+    TodoSummary getTodo(UUID userAccountId, UUID id) throws TodoNotFoundException;
+    void writeDescription(UUID userAccountId, UUID id, HttpServletResponse httpServletResponse)
+            throws TodoNotFoundException, IOException;
+    TodoSummary replaceDescription(UUID userAccountId, UUID id, Reader reader)
+            throws TodoNotFoundException, InvalidTodoDescriptionException, IOException;
+    List<TodoSummary> getTodos(UUID userAccountId, Boolean done, LocalDate afterTargetDate, UUID afterId,
+                               int size);
+    TodoSummary updateTodo(UUID userAccountId, UUID id, TodoRequest todoRequest) throws TodoNotFoundException;
+    void deleteTodo(UUID userAccountId, UUID id) throws TodoNotFoundException;
+    List<TodoOperationResult> applyTodoOperations(UUID userAccountId, List<TodoOperation> operations);
+}
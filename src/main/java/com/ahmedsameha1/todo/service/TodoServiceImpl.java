@@ -0,0 +1,225 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.Todo;
+import com.ahmedsameha1.todo.domain_model.TodoDescription;
+import com.ahmedsameha1.todo.domain_model.TodoOperation;
+import com.ahmedsameha1.todo.domain_model.TodoOperationResult;
+import com.ahmedsameha1.todo.domain_model.TodoRequest;
+import com.ahmedsameha1.todo.domain_model.TodoSummary;
+import com.ahmedsameha1.todo.exception.InvalidTodoDescriptionException;
+import com.ahmedsameha1.todo.exception.TodoNotFoundException;
+import com.ahmedsameha1.todo.repository.TodoRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.ahmedsameha1.todo.Constants.*;
+import static com.ahmedsameha1.todo.domain_model.TodoOperationResult.Status.*;
+
+@Service
+public class TodoServiceImpl implements TodoService {
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Override
+    public TodoSummary createTodo(UUID userAccountId, TodoRequest todoRequest) {
+        var todo = new Todo();
+        todo.setDescription(todoRequest.getDescription());
+        copyTodoRequest(todoRequest, todo);
+        // A reference is enough to set the foreign key, there is no need to load the UserAccount
+        todo.setUserAccount(userAccountRepository.getOne(userAccountId));
+        return TodoSummary.of(todoRepository.save(todo));
+    }
+
+    @Override
+    public TodoSummary getTodo(UUID userAccountId, UUID id) {
+        return todoRepository.findSummaryByIdAndUserAccountId(id, userAccountId)
+                .orElseThrow(TodoNotFoundException::new);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeDescription(UUID userAccountId, UUID id, HttpServletResponse httpServletResponse)
+            throws IOException {
+        var descriptionId = findDescriptionId(userAccountId, id);
+        httpServletResponse.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        httpServletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        var writer = httpServletResponse.getWriter();
+        try (var chunks = todoRepository.streamDescriptionChunks(descriptionId)) {
+            chunks.forEach(writer::write);
+        }
+        writer.flush();
+    }
+
+    @Override
+    @Transactional
+    public TodoSummary replaceDescription(UUID userAccountId, UUID id, Reader reader) throws IOException {
+        var todo = todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId)
+                .orElseThrow(TodoNotFoundException::new);
+        todo.setDescriptionPreview(writeDescriptionChunks(todo.getDescriptionId(), reader));
+        // The chunks are written with SQL, the preview alone doesn't change if only the tail of the description does
+        todo.touch();
+        return TodoSummary.of(todoRepository.saveAndFlush(todo));
+    }
+
+    @Override
+    public List<TodoSummary> getTodos(UUID userAccountId, Boolean done, LocalDate afterTargetDate, UUID afterId,
+                                      int size) {
+        var pageable = PageRequest.of(0, Math.max(1, Math.min(size, TODOS_PAGE_MAX_SIZE)));
+        var firstPage = afterTargetDate == null || afterId == null;
+        if (done == null) {
+            return firstPage ? todoRepository.findFirstPage(userAccountId, pageable)
+                    : todoRepository.findPageAfter(userAccountId, afterTargetDate, afterId, pageable);
+        } else {
+            return firstPage ? todoRepository.findFirstPageByDone(userAccountId, done, pageable)
+                    : todoRepository.findPageAfterByDone(userAccountId, done, afterTargetDate, afterId, pageable);
+        }
+    }
+
+    @Override
+    @Transactional
+    public TodoSummary updateTodo(UUID userAccountId, UUID id, TodoRequest todoRequest) {
+        var todo = todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId)
+                .orElseThrow(TodoNotFoundException::new);
+        copyTodoRequest(todoRequest, todo);
+        // Setting the description on the entity would load the old one first
+        try {
+            todo.setDescriptionPreview(writeDescriptionChunks(todo.getDescriptionId(),
+                    new StringReader(todoRequest.getDescription())));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        todo.touch();
+        return TodoSummary.of(todoRepository.saveAndFlush(todo));
+    }
+
+    @Override
+    public void deleteTodo(UUID userAccountId, UUID id) {
+        if (todoRepository.deleteByIdAndUserAccountId(id, userAccountId) == 0) {
+            throw new TodoNotFoundException();
+        }
+    }
+
+    // Everything is flushed at once so the inserts, updates and deletes go to the database in JDBC batches
+    // An item whose todo doesn't exist or whose version is stale is skipped, a todo that changes between
+    // loading and flushing fails the whole request with an ObjectOptimisticLockingFailureException
+    @Override
+    @Transactional
+    public List<TodoOperationResult> applyTodoOperations(UUID userAccountId, List<TodoOperation> operations) {
+        var ids = operations.stream().map(TodoOperation::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        var todos = ids.isEmpty() ? Map.<UUID, Todo>of()
+                : todoRepository.findAllByIdInAndUserAccountId(ids, userAccountId).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+        var userAccount = userAccountRepository.getOne(userAccountId);
+        var touchedIds = new HashSet<UUID>();
+        var descriptions = new HashMap<UUID, String>();
+        var deletedDescriptionIds = new ArrayList<UUID>();
+        // The ids and versions of the written todos are only final after the flush
+        var results = new ArrayList<Supplier<TodoOperationResult>>(operations.size());
+        for (var operation : operations) {
+            if (operation.getType() == TodoOperation.Type.CREATE) {
+                var todo = new Todo();
+                todo.setDescription(operation.getTodo().getDescription());
+                copyTodoRequest(operation.getTodo(), todo);
+                todo.setUserAccount(userAccount);
+                var created = todoRepository.save(todo);
+                results.add(() -> new TodoOperationResult(created.getId(), CREATED, created.getVersion()));
+                continue;
+            }
+            var todo = todos.get(operation.getId());
+            if (todo == null) {
+                var result = new TodoOperationResult(operation.getId(), NOT_FOUND, null);
+                results.add(() -> result);
+            } else if (todo.getVersion() != operation.getVersion() || !touchedIds.add(todo.getId())) {
+                var result = new TodoOperationResult(operation.getId(), CONFLICT, null);
+                results.add(() -> result);
+            } else if (operation.getType() == TodoOperation.Type.UPDATE) {
+                copyTodoRequest(operation.getTodo(), todo);
+                todo.setDescriptionPreview(TodoDescription.previewOf(operation.getTodo().getDescription()));
+                descriptions.put(todo.getDescriptionId(), operation.getTodo().getDescription());
+                todo.touch();
+                results.add(() -> new TodoOperationResult(todo.getId(), UPDATED, todo.getVersion()));
+            } else {
+                todoRepository.delete(todo);
+                deletedDescriptionIds.add(todo.getDescriptionId());
+                var result = new TodoOperationResult(todo.getId(), DELETED, null);
+                results.add(() -> result);
+            }
+        }
+        todoRepository.flush();
+        todoRepository.replaceDescriptions(descriptions);
+        if (!deletedDescriptionIds.isEmpty()) {
+            todoRepository.deleteDescriptions(deletedDescriptionIds);
+        }
+        return results.stream().map(Supplier::get).collect(Collectors.toList());
+    }
+
+    private UUID findDescriptionId(UUID userAccountId, UUID id) {
+        return todoRepository.findDescriptionIdByIdAndUserAccountId(id, userAccountId)
+                .orElseThrow(TodoNotFoundException::new);
+    }
+
+    // Replaces the chunks of the description while reading it, so only one chunk is in memory at a time
+    // Returns the preview of the new description
+    private String writeDescriptionChunks(UUID descriptionId, Reader reader) throws IOException {
+        todoRepository.deleteDescriptionChunks(descriptionId);
+        var buffer = new char[TODO_DESCRIPTION_CHUNK_LENGTH];
+        String preview = null;
+        var position = 0;
+        var length = 0L;
+        var blank = true;
+        var filled = 0;
+        int read;
+        while ((read = reader.read(buffer, filled, buffer.length - filled)) != -1) {
+            for (int i = filled; blank && i < filled + read; i++) {
+                blank = buffer[i] <= ' ';
+            }
+            filled += read;
+            length += read;
+            if (length > TODO_DESCRIPTION_MAX_LENGTH) {
+                throw new InvalidTodoDescriptionException();
+            }
+            if (filled == buffer.length) {
+                // Don't split a surrogate pair, the high half waits for the next chunk
+                var end = Character.isHighSurrogate(buffer[filled - 1]) ? filled - 1 : filled;
+                var chunk = new String(buffer, 0, end);
+                preview = preview == null ? TodoDescription.previewOf(chunk) : preview;
+                todoRepository.insertDescriptionChunk(descriptionId, position++, chunk);
+                System.arraycopy(buffer, end, buffer, 0, filled - end);
+                filled -= end;
+            }
+        }
+        if (length == 0 || blank) {
+            throw new InvalidTodoDescriptionException();
+        }
+        if (filled > 0) {
+            var chunk = new String(buffer, 0, filled);
+            preview = preview == null ? TodoDescription.previewOf(chunk) : preview;
+            todoRepository.insertDescriptionChunk(descriptionId, position, chunk);
+        }
+        return preview;
+    }
+
+    private void copyTodoRequest(TodoRequest todoRequest, Todo todo) {
+        todo.setTargetDate(todoRequest.getTargetDate());
+        todo.setDone(todoRequest.isDone());
+    }
+}
@@ -12,6 +12,10 @@ public interface UserAccountService {
     UserAccount registerUserAccount(UserAccount userAccount, HttpServletRequest request)
             throws UserExistsException;
     EmailVerificationToken createEmailVerificationToken(UserAccount userAccount);
-    void handleUserAccountEnablingProcess(UUID token, HttpServletRequest httpServletRequest);
+    void handleUserAccountEnablingProcess(String token, HttpServletRequest httpServletRequest);
     String authenticate(SignInRequest signInRequest, HttpServletRequest httpServletRequest);
+    boolean isUsernameAvailable(String username);
+    void requestPasswordReset(String username, HttpServletRequest httpServletRequest);
+    void checkPasswordResetToken(UUID token);
+    void resetPassword(UUID token, String password);
 }
@@ -1,28 +1,42 @@
 package com.ahmedsameha1.todo.service;
 
 import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
+import com.ahmedsameha1.todo.domain_model.PasswordResetToken;
 import com.ahmedsameha1.todo.domain_model.UserAccount;
 import com.ahmedsameha1.todo.email_verification.NeedEmailVerificationToken;
 import com.ahmedsameha1.todo.exception.BadEmailVerificationTokenException;
+import com.ahmedsameha1.todo.exception.BadPasswordResetTokenException;
 import com.ahmedsameha1.todo.exception.ExpiredEmailVerificationTokenException;
+import com.ahmedsameha1.todo.exception.ExpiredPasswordResetTokenException;
 import com.ahmedsameha1.todo.exception.UserExistsException;
+import com.ahmedsameha1.todo.mail.MailDispatcher;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
 import com.ahmedsameha1.todo.repository.EmailVerificationTokenRepository;
+import com.ahmedsameha1.todo.repository.PasswordResetTokenRepository;
 import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.ahmedsameha1.todo.security.ClientAddressResolver;
+import com.ahmedsameha1.todo.security.JwtTokenCodec;
+import com.ahmedsameha1.todo.security.PrincipalCache;
 import com.ahmedsameha1.todo.security.SignInRequest;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import com.ahmedsameha1.todo.security.PasswordResetThrottle;
+import com.ahmedsameha1.todo.security.SignInThrottle;
+import com.ahmedsameha1.todo.security.TokenVersionRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.SimpleMailMessage;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.servlet.http.HttpServletRequest;
 import java.sql.Timestamp;
@@ -31,46 +45,93 @@ import java.util.UUID;
 
 import static com.ahmedsameha1.todo.Constants.EMAIL_VERIFICATION_TOKEN_EXPIRATION_PERIOD_IN_DAYS;
 import static com.ahmedsameha1.todo.Constants.JWT_TOKEN_EXPIRATION_PERIOD_IN_DAYS;
+import static com.ahmedsameha1.todo.Constants.PASSWORD_RESET_TOKEN_EXPIRATION_PERIOD_IN_HOURS;
+import static com.ahmedsameha1.todo.Constants.PASSWORD_RESET_URL;
 
+@Slf4j
 @Service
 public class UserAccountServiceImpl implements UserAccountService {
+    private static final String USERNAME_UNIQUE_CONSTRAINT = "user_account_username_key";
+
     @Autowired
     private UserAccountRepository userAccountRepository;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Autowired
     private EmailVerificationTokenRepository emailVerificationTokenRepository;
 
+    @Autowired
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
     @Autowired
     private ApplicationEventPublisher applicationEventPublisher;
 
-    @Value("${jwtSecret}")
-    private String jwtSecret;
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private JwtTokenCodec jwtTokenCodec;
+
+    @Autowired
+    private SignInThrottle signInThrottle;
+
+    @Autowired
+    private PasswordResetThrottle passwordResetThrottle;
+
+    @Autowired
+    private ClientAddressResolver clientAddressResolver;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UsernameBloomFilter usernameBloomFilter;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
 
+    @Autowired
+    private MessageSource messageSource;
+
+    // The NeedEmailVerificationToken listener writes an outbox entry, so the UserAccount and its pending
+    // verification email are committed together
     @Override
+    @Transactional
     public UserAccount registerUserAccount(UserAccount userAccount,
                                     HttpServletRequest httpServletRequest)
             throws UserExistsException {
-        throwExceptionIfUserAccountWithTakenUsername(userAccount);
         userAccount = saveUserAccount(userAccount);
         sendEmailUponUserAccountRegistration(userAccount, httpServletRequest);
         return userAccount;
     }
 
-    private void throwExceptionIfUserAccountWithTakenUsername(UserAccount userAccount) {
-        if (userAccountRepository.findByUsername(userAccount.getUsername()) != null) {
-            throw new UserExistsException();
-        }
-    }
-
+    // The unique constraint on the username decides whether it is taken, so there is one round trip
+    // and two concurrent sign ups with the same username can't both succeed
     private UserAccount saveUserAccount(UserAccount userAccount) {
-        userAccount.setPassword(bCryptPasswordEncoder.encode(userAccount.getPassword()));
-        return userAccountRepository.save(userAccount);
+        userAccount.setPassword(passwordEncoder.encode(userAccount.getPassword()));
+        try {
+            userAccount = userAccountRepository.saveAndFlush(userAccount);
+            usernameBloomFilter.put(userAccount.getUsername());
+            return userAccount;
+        } catch (DataIntegrityViolationException exception) {
+            if (exception.getCause() instanceof ConstraintViolationException
+                    && USERNAME_UNIQUE_CONSTRAINT.equals(
+                            ((ConstraintViolationException) exception.getCause()).getConstraintName())) {
+                throw new UserExistsException();
+            }
+            throw exception;
+        }
     }
 
     private void sendEmailUponUserAccountRegistration(UserAccount userAccount,
@@ -88,67 +149,160 @@ public class UserAccountServiceImpl implements UserAccountService {
             emailVerificationToken = new EmailVerificationToken();
             emailVerificationToken.setUserAccount(userAccount);
         }
-        emailVerificationToken.setToken(UUID.randomUUID());
+        emailVerificationToken.setToken(EmailVerificationToken.newToken());
         emailVerificationToken.setExpiresAt(LocalDateTime
                 .now().plusDays(EMAIL_VERIFICATION_TOKEN_EXPIRATION_PERIOD_IN_DAYS));
         return emailVerificationTokenRepository.save(emailVerificationToken);
     }
 
+    // The happy path is the single statement of enableByEmailVerificationToken, the token is only loaded
+    // to tell an expired token from an unknown one
+    // Both look the token up by its SHA-256, what the database compares is a digest the caller can't choose
     @Override
-    public void handleUserAccountEnablingProcess(UUID token, HttpServletRequest httpServletRequest) {
-        var emailVerificationToken = emailVerificationTokenRepository.findByToken(token);
-        if (validateEmailVerificationToken(emailVerificationToken, httpServletRequest)) {
-            enableUserAccount(emailVerificationToken);
+    public void handleUserAccountEnablingProcess(String token, HttpServletRequest httpServletRequest) {
+        var now = LocalDateTime.now();
+        var tokenHash = EmailVerificationToken.hash(token);
+        var username = userAccountRepository.enableByEmailVerificationToken(tokenHash, now);
+        if (username.isPresent()) {
+            principalCache.removeUserFromCache(username.get());
+            return;
         }
+        var emailVerificationToken = emailVerificationTokenRepository.findByTokenHash(tokenHash);
+        if (emailVerificationToken != null && emailVerificationToken.getExpiresAt().isBefore(now)) {
+            var userAccount = emailVerificationToken.getUserAccount();
+            if (!emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0)) {
+                queueEmailVerification(userAccount, httpServletRequest);
+            }
+            throw new ExpiredEmailVerificationTokenException();
+        }
+        throw new BadEmailVerificationTokenException();
     }
 
-    private boolean validateEmailVerificationToken(EmailVerificationToken emailVerificationToken,
-                                                   HttpServletRequest httpServletRequest) {
-        if (emailVerificationToken == null) {
-            throw new BadEmailVerificationTokenException();
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (!usernameBloomFilter.mightContain(username)) {
+            return true;
         }
-        if (emailVerificationToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            var appUrl = httpServletRequest.getScheme() + "://" + httpServletRequest.getServerName()
-                    + ":" + httpServletRequest.getServerPort() + httpServletRequest.getContextPath();
-            applicationEventPublisher
-                    .publishEvent(new NeedEmailVerificationToken(emailVerificationToken.getUserAccount(),
-                            appUrl, httpServletRequest.getLocale()));
-            throw new ExpiredEmailVerificationTokenException();
+        var taken = userAccountRepository.existsByUsername(username);
+        usernameBloomFilter.recordDatabaseCheck(taken);
+        return !taken;
+    }
+
+    // Answers the same whether the username exists or not, so it can't be used to find usernames
+    // The email goes through MailDispatcher once the token is saved, a user whose email was lost requests again
+    @Override
+    public void requestPasswordReset(String username, HttpServletRequest httpServletRequest) {
+        if (!passwordResetThrottle.tryAcquire(username, clientAddressResolver.resolve(httpServletRequest))) {
+            log.debug("The password reset request of {} was throttled", username);
+            return;
+        }
+        var userAccount = userAccountRepository.findByUsername(username);
+        if (userAccount == null || !userAccount.isEnabled()) {
+            return;
+        }
+        var passwordResetToken = passwordResetTokenRepository.findByUserAccount(userAccount);
+        if (passwordResetToken == null) {
+            passwordResetToken = new PasswordResetToken();
+            passwordResetToken.setUserAccount(userAccount);
+        }
+        passwordResetToken.setToken(UUID.randomUUID());
+        passwordResetToken.setExpiresAt(LocalDateTime
+                .now().plusHours(PASSWORD_RESET_TOKEN_EXPIRATION_PERIOD_IN_HOURS));
+        passwordResetToken = passwordResetTokenRepository.save(passwordResetToken);
+        var appUrl = httpServletRequest.getScheme() + "://" + httpServletRequest.getServerName()
+                + ":" + httpServletRequest.getServerPort() + httpServletRequest.getContextPath();
+        var passwordResetUrl = appUrl + PASSWORD_RESET_URL + "?token=" + passwordResetToken.getToken();
+        var passwordResetSubject = messageSource.getMessage("passwordResetSubject",
+                null, httpServletRequest.getLocale());
+        var passwordResetMessage = messageSource.getMessage("passwordResetMessage",
+                null, httpServletRequest.getLocale());
+        var email = new SimpleMailMessage();
+        email.setTo(userAccount.getEmail());
+        email.setSubject(passwordResetSubject);
+        email.setText(passwordResetMessage + "\r\n" + passwordResetUrl);
+        if (!mailDispatcher.dispatch(email)) {
+            log.warn("The password reset email of {} wasn't queued", userAccount.getUsername());
         }
-        return true;
     }
 
-    @Transactional
-    private void enableUserAccount(EmailVerificationToken emailVerificationToken) {
-        var userAccount = emailVerificationToken.getUserAccount();
-        userAccount.setEnabled(true);
-        userAccountRepository.save(userAccount);
-        emailVerificationTokenRepository.delete(emailVerificationToken);
+    @Override
+    public void checkPasswordResetToken(UUID token) {
+        validatePasswordResetToken(passwordResetTokenRepository.findByToken(token));
+    }
+
+    // The password is hashed before the transaction, so no transaction waits for the hashing
+    // Deleting the token decides which of two concurrent resets wins, the token is only consumed together
+    // with the new password and the revocation of the issued JWTs
+    @Override
+    public void resetPassword(UUID token, String password) {
+        var passwordResetToken = passwordResetTokenRepository.findByToken(token);
+        validatePasswordResetToken(passwordResetToken);
+        var encodedPassword = passwordEncoder.encode(password);
+        var userAccount = passwordResetToken.getUserAccount();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (passwordResetTokenRepository.deleteByTokenValue(token) == 0) {
+                throw new BadPasswordResetTokenException();
+            }
+            userAccountRepository.updatePassword(userAccount.getId(), encodedPassword);
+            tokenVersionRegistry.revokeTokens(userAccount);
+        });
+        signInThrottle.recordSuccess(userAccount.getUsername());
+    }
+
+    private void validatePasswordResetToken(PasswordResetToken passwordResetToken) {
+        if (passwordResetToken == null) {
+            throw new BadPasswordResetTokenException();
+        }
+        if (passwordResetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new ExpiredPasswordResetTokenException();
+        }
     }
 
     @Override
     public String authenticate(SignInRequest signInRequest, HttpServletRequest httpServletRequest) {
+        var remoteAddress = clientAddressResolver.resolve(httpServletRequest);
+        signInThrottle.checkAllowed(signInRequest.getUsername(), remoteAddress);
         Authentication authentication;
         try {
             authentication = authenticationManager
                     .authenticate(new UsernamePasswordAuthenticationToken(signInRequest.getUsername(),
                             signInRequest.getPassword()));
+        } catch (BadCredentialsException bce) {
+            signInThrottle.recordFailure(signInRequest.getUsername(), remoteAddress);
+            throw bce;
         } catch (DisabledException de) {
            var userAccount = userAccountRepository.findByUsername(signInRequest.getUsername());
            var emailVerificationToken = emailVerificationTokenRepository.findByUserAccount(userAccount);
-           if (emailVerificationToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-               var appUrl = httpServletRequest.getScheme() + "://" + httpServletRequest.getServerName()
-                       + ":" + httpServletRequest.getServerPort() + httpServletRequest.getContextPath();
-               applicationEventPublisher
-                       .publishEvent(new NeedEmailVerificationToken(userAccount, appUrl, httpServletRequest.getLocale()));
+           // EmailVerificationRelay creates the token when it first claims the outbox entry, a missing token
+           // with no such entry waiting was deleted by ExpiredTokenSweeper, so it expired
+           var unclaimed = emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0);
+           var expired = emailVerificationToken == null ? !unclaimed
+                   : emailVerificationToken.getExpiresAt().isBefore(LocalDateTime.now());
+           if (expired) {
+               // The waiting entry already sends a new token, another one would only replace it
+               if (!unclaimed) {
+                   queueEmailVerification(userAccount, httpServletRequest);
+               }
                throw new ExpiredEmailVerificationTokenException();
            } else {
                throw de;
            }
         }
-        return  Jwts.builder()
-                .setSubject(((UserDetails) authentication.getPrincipal()).getUsername())
-                .setExpiration(Timestamp.valueOf(LocalDateTime.now().plusDays(JWT_TOKEN_EXPIRATION_PERIOD_IN_DAYS)))
-                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret))).compact();
+        signInThrottle.recordSuccess(signInRequest.getUsername());
+        return jwtTokenCodec.encode((UserAccount) authentication.getPrincipal(),
+                Timestamp.valueOf(LocalDateTime.now().plusDays(JWT_TOKEN_EXPIRATION_PERIOD_IN_DAYS)));
+    }
+
+    // Only one outbox entry of a UserAccount can wait for its first claim, a concurrent request that queued
+    // it first makes the unique index reject this one
+    private void queueEmailVerification(UserAccount userAccount, HttpServletRequest httpServletRequest) {
+        var appUrl = httpServletRequest.getScheme() + "://" + httpServletRequest.getServerName()
+                + ":" + httpServletRequest.getServerPort() + httpServletRequest.getContextPath();
+        try {
+            applicationEventPublisher
+                    .publishEvent(new NeedEmailVerificationToken(userAccount, appUrl, httpServletRequest.getLocale()));
+        } catch (DataIntegrityViolationException exception) {
+            log.debug("The verification email of {} is already queued", userAccount.getUsername());
+        }
     }
 }
@@ -0,0 +1,130 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Answers most username availability checks without the database
+// mightContain is false only for a username that was never put, a true answer has to be checked in the database
+// The usernames are streamed from user_account once the application is ready, until then every check is a maybe
+// Usernames are never removed, a deleted UserAccount only adds to the false positives
+// Only the registrations of this instance are put, another instance would answer available for them,
+// so the filter is used only when username.bloom-filter.single-node says so, otherwise every check is a maybe
+@Component
+public class UsernameBloomFilter {
+    public static final String METRIC_PREFIX = "username.bloom-filter";
+
+    private final UserAccountRepository userAccountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean singleNode;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLongArray bits;
+    private final AtomicLong setBitCount = new AtomicLong();
+    private final Counter negativeCounter;
+    private final Counter truePositiveCounter;
+    private final Counter falsePositiveCounter;
+    private volatile boolean loaded = false;
+
+    public UsernameBloomFilter(UserAccountRepository userAccountRepository, TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${username.bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${username.bloom-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${username.bloom-filter.single-node:false}") boolean singleNode) {
+        this.userAccountRepository = userAccountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.singleNode = singleNode;
+        var optimalBitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        bits = new AtomicLongArray((int) ((Math.max(64, optimalBitCount) + 63) / 64));
+        bitCount = bits.length() * 64L;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        Gauge.builder(METRIC_PREFIX + ".memory", bits, b -> b.length() * 8.0).baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".false-positive-rate", this, UsernameBloomFilter::expectedFalsePositiveRate)
+                .register(meterRegistry);
+        negativeCounter = meterRegistry.counter(METRIC_PREFIX + ".checks", "result", "negative");
+        truePositiveCounter = meterRegistry.counter(METRIC_PREFIX + ".checks", "result", "true-positive");
+        falsePositiveCounter = meterRegistry.counter(METRIC_PREFIX + ".checks", "result", "false-positive");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!singleNode) {
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            try (var usernames = userAccountRepository.streamUsernames()) {
+                usernames.forEach(this::put);
+            }
+            return null;
+        });
+        loaded = true;
+    }
+
+    public void put(String username) {
+        var hash = hash(username);
+        var hash1 = (int) hash;
+        var hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            var bit = Math.floorMod(hash1 + (long) i * hash2, bitCount);
+            var mask = 1L << bit;
+            if ((bits.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m) & mask) == 0) {
+                setBitCount.incrementAndGet();
+            }
+        }
+    }
+
+    public boolean mightContain(String username) {
+        if (!loaded) {
+            return true;
+        }
+        var hash = hash(username);
+        var hash1 = (int) hash;
+        var hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            var bit = Math.floorMod(hash1 + (long) i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                negativeCounter.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tells the filter what the database said about a username that mightContain didn't rule out
+    public void recordDatabaseCheck(boolean taken) {
+        if (loaded) {
+            (taken ? truePositiveCounter : falsePositiveCounter).increment();
+        }
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBitCount.get() / bitCount, hashCount);
+    }
+
+    // 64 bit FNV-1a over the chars, finished with the murmur3 mixer, the two halves are the two hashes
+    // the positions are derived from
+    private static long hash(String username) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            hash ^= username.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
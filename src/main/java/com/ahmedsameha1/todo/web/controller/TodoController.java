@@ -0,0 +1,95 @@
+package com.ahmedsameha1.todo.web.controller;
+
+import com.ahmedsameha1.todo.domain_model.BulkTodoRequest;
+import com.ahmedsameha1.todo.domain_model.TodoOperationResult;
+import com.ahmedsameha1.todo.domain_model.TodoRequest;
+import com.ahmedsameha1.todo.domain_model.TodoSummary;
+import com.ahmedsameha1.todo.service.TodoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static com.ahmedsameha1.todo.Constants.TODOS_URL;
+
+@RestController
+@RequestMapping(TODOS_URL)
+public class TodoController {
+    @Autowired
+    private TodoService todoService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TodoSummary> createTodo(@AuthenticationPrincipal(expression = "id") UUID userAccountId,
+                                                  @RequestBody @Valid TodoRequest todoRequest) {
+        var todo = todoService.createTodo(userAccountId, todoRequest);
+        return ResponseEntity.created(URI.create(TODOS_URL + "/" + todo.getId())).body(todo);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TodoSummary> getTodo(@AuthenticationPrincipal(expression = "id") UUID userAccountId,
+                                               @PathVariable("id") UUID id) {
+        return ResponseEntity.ok(todoService.getTodo(userAccountId, id));
+    }
+
+    // The description is streamed as UTF-8 text in both directions, it is never read into memory as a whole
+    @GetMapping("/{id}/description")
+    public void getDescription(@AuthenticationPrincipal(expression = "id") UUID userAccountId,
+                               @PathVariable("id") UUID id, HttpServletResponse httpServletResponse)
+            throws IOException {
+        todoService.writeDescription(userAccountId, id, httpServletResponse);
+    }
+
+    @PutMapping(path = "/{id}/description", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<TodoSummary> replaceDescription(
+            @AuthenticationPrincipal(expression = "id") UUID userAccountId, @PathVariable("id") UUID id,
+            HttpServletRequest httpServletRequest) throws IOException {
+        var reader = new InputStreamReader(httpServletRequest.getInputStream(), StandardCharsets.UTF_8);
+        return ResponseEntity.ok(todoService.replaceDescription(userAccountId, id, reader));
+    }
+
+    // To get the next page send the targetDate and the id of the last todo of the current page
+    @GetMapping
+    public ResponseEntity<List<TodoSummary>> getTodos(
+            @AuthenticationPrincipal(expression = "id") UUID userAccountId,
+            @RequestParam(name = "done", required = false) Boolean done,
+            @RequestParam(name = "after_target_date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterTargetDate,
+            @RequestParam(name = "after_id", required = false) UUID afterId,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(todoService.getTodos(userAccountId, done, afterTargetDate, afterId, size));
+    }
+
+    @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TodoSummary> updateTodo(@AuthenticationPrincipal(expression = "id") UUID userAccountId,
+                                                  @PathVariable("id") UUID id,
+                                                  @RequestBody @Valid TodoRequest todoRequest) {
+        return ResponseEntity.ok(todoService.updateTodo(userAccountId, id, todoRequest));
+    }
+
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TodoOperationResult>> applyTodoOperations(
+            @AuthenticationPrincipal(expression = "id") UUID userAccountId,
+            @RequestBody @Valid BulkTodoRequest bulkTodoRequest) {
+        return ResponseEntity.ok(todoService.applyTodoOperations(userAccountId, bulkTodoRequest.getOperations()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteTodo(@AuthenticationPrincipal(expression = "id") UUID userAccountId,
+                                        @PathVariable("id") UUID id) {
+        todoService.deleteTodo(userAccountId, id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,6 +1,8 @@
 package com.ahmedsameha1.todo.web.controller;
 
 import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.security.NewPasswordRequest;
+import com.ahmedsameha1.todo.security.PasswordResetRequest;
 import com.ahmedsameha1.todo.security.SignInRequest;
 import com.ahmedsameha1.todo.service.UserAccountService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,12 +35,36 @@ public class UserAccountController {
     }
 
     @GetMapping(EMAIL_VERIFICATION_URL)
-    public ResponseEntity<?> emailVerification(@RequestParam("token") UUID token,
+    public ResponseEntity<?> emailVerification(@RequestParam("token") String token,
                                                HttpServletRequest request) {
         userAccountService.handleUserAccountEnablingProcess(token, request);
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping(USERNAME_AVAILABILITY_URL)
+    public ResponseEntity<Map<String, Boolean>> usernameAvailability(@RequestParam("username") String username) {
+        return ResponseEntity.ok(Map.of("available", userAccountService.isUsernameAvailable(username)));
+    }
+
+    @PostMapping(PASSWORD_RESET_REQUEST_URL)
+    public ResponseEntity<?> passwordResetRequest(@RequestBody @Valid PasswordResetRequest passwordResetRequest,
+                                                  HttpServletRequest request) {
+        userAccountService.requestPasswordReset(passwordResetRequest.getUsername(), request);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping(PASSWORD_RESET_URL)
+    public ResponseEntity<?> passwordResetTokenCheck(@RequestParam("token") UUID token) {
+        userAccountService.checkPasswordResetToken(token);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping(PASSWORD_RESET_URL)
+    public ResponseEntity<?> passwordReset(@RequestBody @Valid NewPasswordRequest newPasswordRequest) {
+        userAccountService.resetPassword(newPasswordRequest.getToken(), newPasswordRequest.getPassword());
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping(SIGN_IN_URL)
     public ResponseEntity<Map<String, String>> signIn(@RequestBody @Valid SignInRequest signInRequest,
                                                       HttpServletRequest httpServletRequest) {
@@ -0,0 +1,3 @@
+-- Every claim counts as an attempt, an entry that reaches the limit stays as a dead letter instead of
+-- being claimed, and getting a new token, forever
+alter table email_verification_outbox add column attempts int not null default 0;
@@ -0,0 +1,6 @@
+-- A UserAccount has at most one outbox entry that waits for its first claim, its email carries the newest token
+delete from email_verification_outbox e where attempts = 0 and exists (select 1 from email_verification_outbox o
+    where o.user_account_id = e.user_account_id and o.attempts = 0
+    and (o.creation_time, o.id) > (e.creation_time, e.id));
+create unique index email_verification_outbox_unclaimed_user_account_id_idx
+    on email_verification_outbox (user_account_id) where attempts = 0;
@@ -0,0 +1,6 @@
+-- SignInThrottle locks a UserAccount until locked_until instead of for good, locked is left for locks that
+-- need a password reset
+alter table user_account add column locked_until timestamp;
+
+-- The locks SignInThrottle already set could be forced by anyone who knows a username, they are released
+update user_account set locked = false where locked;
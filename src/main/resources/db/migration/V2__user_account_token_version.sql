@@ -0,0 +1 @@
+alter table user_account add column token_version integer default 0;
@@ -0,0 +1,10 @@
+-- Listing the todos of a user account, ordered by target_date then id (the keyset pagination)
+create index todo_user_account_id_target_date_id_idx on todo (user_account_id, target_date, id);
+
+-- The same listing restricted to the todos that aren't done yet
+create index todo_not_done_user_account_id_target_date_id_idx on todo (user_account_id, target_date, id)
+    where done = false;
+
+-- Sweeping the expired tokens
+create index email_verification_token_expires_at_idx on email_verification_token (expires_at);
+create index password_reset_token_expires_at_idx on password_reset_token (expires_at);
@@ -0,0 +1,25 @@
+-- The full description moves to its own table, the todo rows keep a short preview for the listings
+create table todo_description (
+    id uuid primary key default uuid_generate_v4(),
+    content text not null check (
+        char_length(content) >= 1
+        and
+        char_length(content) <= 200000000
+        and
+        content ~ '^.*\S.*$'
+    ),
+    creation_time timestamp not null,
+    update_time timestamp not null
+);
+
+alter table todo add column description_id uuid unique references todo_description(id);
+alter table todo add column description_preview varchar(255);
+
+-- The existing descriptions reuse the id of their todo
+insert into todo_description (id, content, creation_time, update_time)
+    select id, description, creation_time, update_time from todo;
+update todo set description_id = id, description_preview = left(description, 255);
+
+alter table todo alter column description_id set not null;
+alter table todo alter column description_preview set not null;
+alter table todo drop column description;
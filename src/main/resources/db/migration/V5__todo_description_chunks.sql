@@ -0,0 +1,15 @@
+-- The descriptions are stored in chunks of at most 65536 characters so they can be streamed
+-- Whether a whole description is blank or too long is checked by the application while writing it
+create table todo_description_chunk (
+    description_id uuid not null references todo_description(id) on delete cascade,
+    position integer not null check (position >= 0),
+    content text not null check (char_length(content) >= 1),
+    primary key (description_id, position)
+);
+
+insert into todo_description_chunk (description_id, position, content)
+    select d.id, s.position, substr(d.content, s.position * 65536 + 1, 65536)
+    from todo_description d,
+         generate_series(0, (char_length(d.content) - 1) / 65536) as s(position);
+
+alter table todo_description drop column content;
@@ -0,0 +1,12 @@
+create table email_verification_outbox (
+    id uuid primary key default uuid_generate_v4(),
+    user_account_id uuid not null references user_account(id) on delete cascade,
+    app_url varchar(2048) not null,
+    locale varchar(50) not null,
+    claimed_until timestamp,
+    creation_time timestamp not null,
+    update_time timestamp not null
+);
+
+-- The relay claims the oldest rows first
+create index email_verification_outbox_creation_time_idx on email_verification_outbox (creation_time);
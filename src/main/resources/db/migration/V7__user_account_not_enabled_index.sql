@@ -0,0 +1,2 @@
+-- Sweeping the user accounts that were never enabled, oldest first
+create index user_account_not_enabled_creation_time_idx on user_account (creation_time) where enabled = false;
@@ -0,0 +1,16 @@
+-- The tokens are stored as their SHA-256, looked up through the unique index of the 32 bytes digest
+alter table email_verification_token add column token_hash bytea;
+
+-- A check against current_timestamp is only true when the row is written, updating an expired token fails it
+-- The entity still validates expiresAt with @Future
+alter table email_verification_token drop constraint email_verification_token_expires_at_check;
+
+-- The links already emailed carry the uuid text of their token, hashing it keeps them working until they expire
+update email_verification_token set token_hash = sha256(convert_to(token::text, 'UTF8'));
+
+alter table email_verification_token alter column token_hash set not null;
+alter table email_verification_token add constraint email_verification_token_token_hash_key unique (token_hash);
+alter table email_verification_token add constraint email_verification_token_token_hash_length
+    check (octet_length(token_hash) = 32);
+
+alter table email_verification_token drop column token;
@@ -0,0 +1,4 @@
+-- Listing the todos of a user account by done, ordered by target_date then id (the keyset pagination)
+-- done is bound as a parameter, a partial index on done = false can't be used by a generic plan
+drop index todo_not_done_user_account_id_target_date_id_idx;
+create index todo_user_account_id_done_target_date_id_idx on todo (user_account_id, done, target_date, id);
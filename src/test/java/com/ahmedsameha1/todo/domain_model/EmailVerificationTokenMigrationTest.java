@@ -0,0 +1,69 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Migrates a schema of its own, so the tables of the application stay at the latest version
+public class EmailVerificationTokenMigrationTest extends ProductionDatabaseBaseTest {
+    private static final String SCHEMA = "email_verification_token_migration";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.execute("drop schema if exists " + SCHEMA + " cascade");
+    }
+
+    @Test
+    @DisplayName("Test that the tokens are hashed by V8, expired ones included")
+    public void test1() {
+        flyway("7").migrate();
+        var userAccountId = UUID.randomUUID();
+        jdbcTemplate.update("insert into " + SCHEMA + ".user_account (id, username, password, first_name,"
+                        + " last_name, email, birth_day, creation_time, update_time) values (?, ?, ?, ?, ?, ?, ?,"
+                        + " current_timestamp, current_timestamp)",
+                userAccountId, "user2", "ffffff3Q", "user2", "user2", "user2@user2.com", LocalDate.of(2010, 10, 10));
+        var token = UUID.randomUUID();
+        // A token can't be saved already expired, so the check is put back unvalidated as if the token expired since
+        jdbcTemplate.execute("alter table " + SCHEMA + ".email_verification_token drop constraint"
+                + " email_verification_token_expires_at_check");
+        jdbcTemplate.update("insert into " + SCHEMA + ".email_verification_token (token, expires_at,"
+                        + " user_account_id, creation_time, update_time) values (?, ?, ?, current_timestamp,"
+                        + " current_timestamp)",
+                token, Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), userAccountId);
+        jdbcTemplate.execute("alter table " + SCHEMA + ".email_verification_token add constraint"
+                + " email_verification_token_expires_at_check check (expires_at > current_timestamp) not valid");
+        flyway(null).migrate();
+        assertThat(jdbcTemplate.queryForObject("select token_hash from " + SCHEMA
+                        + ".email_verification_token where user_account_id = ?", byte[].class, userAccountId))
+                .isEqualTo(EmailVerificationToken.hash(token.toString()));
+    }
+
+    private static Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .schemas(SCHEMA);
+        if (target != null) {
+            configuration.target(target);
+        }
+        return configuration.load();
+    }
+}
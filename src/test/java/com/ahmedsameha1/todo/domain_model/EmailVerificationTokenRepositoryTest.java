@@ -39,7 +39,7 @@ public class EmailVerificationTokenRepositoryTest extends ProductionDatabaseBase
         userAccount.setEmail("user2@user2.com");
         userAccount = userAccountRepository.save(userAccount);
         emailVerificationToken = new EmailVerificationToken();
-        emailVerificationToken.setToken(UUID.randomUUID());
+        emailVerificationToken.setToken(EmailVerificationToken.newToken());
         emailVerificationToken.setExpiresAt(LocalDateTime.now().plusDays(1));
         emailVerificationToken.setUserAccount(userAccount);
     }
@@ -63,14 +63,17 @@ public class EmailVerificationTokenRepositoryTest extends ProductionDatabaseBase
     @Test
     @DisplayName("Test saving EmailVerificationToken with the correct values")
     public void test3() {
-        var token = UUID.randomUUID();
+        var token = EmailVerificationToken.newToken();
         var expiredAt = LocalDateTime.now().plusDays(1);
         emailVerificationToken.setToken(token);
         emailVerificationToken.setExpiresAt(expiredAt);
         emailVerificationToken = emailVerificationTokenRepository.save(emailVerificationToken);
         var databaseEmailVerificationToken = emailVerificationTokenRepository
                 .findById(emailVerificationToken.getId()).get();
-        assertThat(databaseEmailVerificationToken.getToken()).isEqualTo(token);
+        assertThat(token).hasSize(43);
+        assertThat(databaseEmailVerificationToken.getTokenHash())
+                .hasSize(EmailVerificationToken.TOKEN_HASH_LENGTH_IN_BYTES)
+                .isEqualTo(EmailVerificationToken.hash(token));
         assertThat(databaseEmailVerificationToken.getExpiresAt()).isEqualTo(expiredAt);
         assertThat(databaseEmailVerificationToken.getUserAccount()).isEqualTo(userAccount);
     }
@@ -86,7 +89,7 @@ public class EmailVerificationTokenRepositoryTest extends ProductionDatabaseBase
     @Test
     @DisplayName("Should fail because there is an EmailVerificationToken with the same token")
     public void test5() {
-        var token = UUID.randomUUID();
+        var token = EmailVerificationToken.newToken();
         emailVerificationToken.setToken(token);
         emailVerificationTokenRepository.save(emailVerificationToken);
         emailVerificationToken = new EmailVerificationToken();
@@ -146,11 +149,34 @@ public class EmailVerificationTokenRepositoryTest extends ProductionDatabaseBase
         emailVerificationToken.setUserAccount(userAccount);
         emailVerificationTokenRepository.save(emailVerificationToken);
         emailVerificationToken = new EmailVerificationToken();
-        emailVerificationToken.setToken(UUID.randomUUID());
+        emailVerificationToken.setToken(EmailVerificationToken.newToken());
         emailVerificationToken.setExpiresAt(LocalDateTime.now().plusDays(1));
         emailVerificationToken.setUserAccount(userAccount);
         assertThatThrownBy(() -> emailVerificationTokenRepository.save(emailVerificationToken))
                 .isInstanceOf(DataIntegrityViolationException.class)
                 .hasRootCauseInstanceOf(PSQLException.class);
     }
+
+    @Test
+    @DisplayName("Test that a valid token enables its UserAccount and can only be used once")
+    public void test10() {
+        emailVerificationTokenRepository.save(emailVerificationToken);
+        var now = LocalDateTime.now();
+        assertThat(userAccountRepository.enableByEmailVerificationToken(emailVerificationToken.getTokenHash(), now))
+                .contains(userAccount.getUsername());
+        assertThat(userAccountRepository.findByUsername(userAccount.getUsername()).isEnabled()).isTrue();
+        assertThat(emailVerificationTokenRepository.findByTokenHash(emailVerificationToken.getTokenHash())).isNull();
+        assertThat(userAccountRepository.enableByEmailVerificationToken(emailVerificationToken.getTokenHash(), now))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test that an expired token doesn't enable its UserAccount and is kept")
+    public void test11() {
+        emailVerificationTokenRepository.save(emailVerificationToken);
+        assertThat(userAccountRepository.enableByEmailVerificationToken(emailVerificationToken.getTokenHash(),
+                LocalDateTime.now().plusDays(2))).isEmpty();
+        assertThat(userAccountRepository.findByUsername(userAccount.getUsername()).isEnabled()).isFalse();
+        assertThat(emailVerificationTokenRepository.findByTokenHash(emailVerificationToken.getTokenHash())).isNotNull();
+    }
 }
@@ -153,4 +153,15 @@ public class PasswordResetTokenRepositoryTest extends ProductionDatabaseBaseTest
                 .isInstanceOf(DataIntegrityViolationException.class)
                 .hasRootCauseInstanceOf(PSQLException.class);
     }
+
+    @Test
+    @DisplayName("Test that a PasswordResetToken is found by its token and can only be deleted once")
+    public void test10() {
+        passwordResetTokenRepository.save(passwordResetToken);
+        assertThat(passwordResetTokenRepository.findByToken(passwordResetToken.getToken())).isNotNull();
+        assertThat(passwordResetTokenRepository.findByToken(UUID.randomUUID())).isNull();
+        assertThat(passwordResetTokenRepository.deleteByTokenValue(passwordResetToken.getToken())).isEqualTo(1);
+        assertThat(passwordResetTokenRepository.deleteByTokenValue(passwordResetToken.getToken())).isEqualTo(0);
+        assertThat(passwordResetTokenRepository.findByToken(passwordResetToken.getToken())).isNull();
+    }
 }
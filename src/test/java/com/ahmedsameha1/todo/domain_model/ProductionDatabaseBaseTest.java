@@ -20,7 +20,6 @@ public abstract class ProductionDatabaseBaseTest {
                 .withUsername("postgres")
                 .withPassword("password");
         postgres.setDockerImageName("fintrace/postgres-uuid");
-        postgres.withInitScript("sc.sql");
         postgres.start();
     }
 
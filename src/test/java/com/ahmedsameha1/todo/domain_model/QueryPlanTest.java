@@ -0,0 +1,110 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import com.ahmedsameha1.todo.repository.TodoRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sequential scans are disabled while explaining, otherwise the planner prefers them for small tables
+public class QueryPlanTest extends ProductionDatabaseBaseTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    private UserAccount userAccount;
+
+    @BeforeEach
+    public void before() {
+        userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("ffffff3Q");
+        userAccount.setFirstName("user2");
+        userAccount.setLastName("user2");
+        userAccount.setGender(Gender.MALE);
+        userAccount.setBirthDay(LocalDate.of(2010, 10, 10));
+        userAccount.setEmail("user2@user2.com");
+        userAccount = userAccountRepository.save(userAccount);
+        var todos = new ArrayList<Todo>();
+        for (int i = 1; i <= 200; i++) {
+            var todo = new Todo();
+            todo.setDescription("todo " + i);
+            todo.setTargetDate(LocalDate.now().plusDays(i));
+            todo.setDone(i > 10);
+            todo.setUserAccount(userAccount);
+            todos.add(todo);
+        }
+        todoRepository.saveAll(todos);
+        jdbcTemplate.execute("analyze todo");
+    }
+
+    @Test
+    @DisplayName("Test that listing the todos of a UserAccount uses the composite index")
+    public void test1() {
+        var plan = explain("select id, target_date, done from todo where user_account_id = ?"
+                        + " and (target_date > ? or (target_date = ? and id > ?)) order by target_date, id limit 20",
+                userAccount.getId(), LocalDate.now(), LocalDate.now(), UUID.randomUUID());
+        assertThat(plan).contains("todo_user_account_id_target_date_id_idx");
+    }
+
+    @Test
+    @DisplayName("Test that listing the todos by done uses the index that has done, whichever done is bound")
+    public void test2() {
+        for (var done : new boolean[]{false, true}) {
+            var plan = explain("select id, target_date, done from todo where user_account_id = ? and done = ?"
+                            + " order by target_date, id limit 20",
+                    userAccount.getId(), done);
+            assertThat(plan).contains("todo_user_account_id_done_target_date_id_idx");
+        }
+    }
+
+    @Test
+    @DisplayName("Test that sweeping the expired tokens uses the expires_at indexes")
+    public void test3() {
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        assertThat(explain("select id from email_verification_token where expires_at < ?", now))
+                .contains("email_verification_token_expires_at_idx");
+        assertThat(explain("select id from password_reset_token where expires_at < ?", now))
+                .contains("password_reset_token_expires_at_idx");
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("set enable_seqscan = off");
+            }
+            var plan = new StringBuilder();
+            try (var preparedStatement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    preparedStatement.setObject(i + 1, parameters[i]);
+                }
+                try (var resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("reset enable_seqscan");
+                }
+            }
+            return plan.toString();
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.ahmedsameha1.todo.domain_model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_CHUNK_LENGTH;
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_PREVIEW_LENGTH;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TodoDescriptionTest {
+    private TodoDescription todoDescription;
+
+    @BeforeEach
+    public void before() {
+        todoDescription = new TodoDescription();
+    }
+
+    @Test
+    @DisplayName("Test that the content is the same after being split into chunks")
+    public void test1() {
+        var content = "a".repeat(TODO_DESCRIPTION_CHUNK_LENGTH - 1) + "😀" + "b".repeat(10);
+        todoDescription.setContent(content);
+        assertThat(todoDescription.getContent()).isEqualTo(content);
+        todoDescription.setContent("todo");
+        assertThat(todoDescription.getContent()).isEqualTo("todo");
+    }
+
+    @Test
+    @DisplayName("Test that an empty content is null")
+    public void test2() {
+        assertThat(todoDescription.getContent()).isNull();
+        todoDescription.setContent("");
+        assertThat(todoDescription.getContent()).isNull();
+    }
+
+    @Test
+    @DisplayName("Test that the preview is bounded and doesn't split a surrogate pair")
+    public void test3() {
+        assertThat(TodoDescription.previewOf("todo")).isEqualTo("todo");
+        assertThat(TodoDescription.previewOf("f".repeat(1000))).hasSize(TODO_DESCRIPTION_PREVIEW_LENGTH);
+        assertThat(TodoDescription.previewOf("f".repeat(TODO_DESCRIPTION_PREVIEW_LENGTH - 1) + "😀"))
+                .isEqualTo("f".repeat(TODO_DESCRIPTION_PREVIEW_LENGTH - 1));
+    }
+}
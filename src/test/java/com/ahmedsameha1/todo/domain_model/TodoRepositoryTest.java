@@ -7,11 +7,17 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.Persistence;
 import javax.validation.ConstraintViolationException;
 import java.time.LocalDate;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_CHUNK_LENGTH;
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_PREVIEW_LENGTH;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -22,6 +28,9 @@ public class TodoRepositoryTest extends ProductionDatabaseBaseTest {
     @Autowired
     private UserAccountRepository userAccountRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private Todo todo;
     private UserAccount userAccount;
 
@@ -59,7 +68,8 @@ public class TodoRepositoryTest extends ProductionDatabaseBaseTest {
             todo.setDone(true);
             todo = todoRepository.save(todo);
             Todo databaseTodo = todoRepository.findById(todo.getId()).get();
-            assertThat(databaseTodo.getDescription()).isEqualTo("Pay internet service subscription");
+            assertThat(databaseTodo.getDescriptionPreview()).isEqualTo("Pay internet service subscription");
+            assertThat(readDescription(todo.getId())).isEqualTo("Pay internet service subscription");
             assertThat(databaseTodo.getTargetDate()).isEqualTo(LocalDate.of(2025, 10, 10));
             assertThat(databaseTodo.getUserAccount()).isEqualTo(userAccount);
             assertThat(databaseTodo.isDone()).isTrue();
@@ -115,6 +125,58 @@ public class TodoRepositoryTest extends ProductionDatabaseBaseTest {
             assertThatThrownBy(() -> todoRepository.save(todo))
                     .hasRootCauseInstanceOf(ConstraintViolationException.class);
         }
+
+        @Test
+        @DisplayName("Test that only a bounded preview of the description is kept on the todo")
+        public void test5() {
+            todo.setDescription("f".repeat(1000));
+            todo = todoRepository.save(todo);
+            assertThat(todoRepository.findById(todo.getId()).get().getDescriptionPreview())
+                    .isEqualTo("f".repeat(TODO_DESCRIPTION_PREVIEW_LENGTH));
+            assertThat(todoRepository.findSummaryByIdAndUserAccountId(todo.getId(), userAccount.getId()).get()
+                    .getDescriptionPreview()).hasSize(TODO_DESCRIPTION_PREVIEW_LENGTH);
+            assertThat(readDescription(todo.getId())).hasSize(1000);
+        }
+
+        @Test
+        @DisplayName("Test that loading a todo doesn't load its description")
+        public void test6() {
+            todo = todoRepository.save(todo);
+            var databaseTodo = todoRepository.findById(todo.getId()).get();
+            assertThat(Persistence.getPersistenceUtil().isLoaded(databaseTodo, "body")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Test that the description is stored in chunks and read back in order")
+        public void test7() {
+            var description = "a".repeat(TODO_DESCRIPTION_CHUNK_LENGTH) + "b".repeat(TODO_DESCRIPTION_CHUNK_LENGTH)
+                    + "c".repeat(10);
+            todo.setDescription(description);
+            todo = todoRepository.save(todo);
+            assertThat(readDescription(todo.getId())).isEqualTo(description);
+            var descriptionId = todoRepository.findDescriptionIdByIdAndUserAccountId(todo.getId(),
+                    userAccount.getId()).get();
+            assertThat(transactionTemplate.execute(status -> {
+                try (var chunks = todoRepository.streamDescriptionChunks(descriptionId)) {
+                    return chunks.count();
+                }
+            })).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Test that deleting a todo deletes its description")
+        public void test8() {
+            todo = todoRepository.save(todo);
+            var descriptionId = todoRepository.findDescriptionIdByIdAndUserAccountId(todo.getId(),
+                    userAccount.getId()).get();
+            assertThat(todoRepository.deleteByIdAndUserAccountId(todo.getId(), userAccount.getId())).isEqualTo(1);
+            assertThat(todoRepository.findById(todo.getId())).isEmpty();
+            assertThat(transactionTemplate.execute(status -> {
+                try (var chunks = todoRepository.streamDescriptionChunks(descriptionId)) {
+                    return chunks.count();
+                }
+            })).isZero();
+        }
     }
 
     @Nested
@@ -137,6 +199,63 @@ public class TodoRepositoryTest extends ProductionDatabaseBaseTest {
         }
     }
 
+    @Nested
+    @DisplayName("Keyset pagination tests")
+    class KeysetPagination {
+        @BeforeEach
+        public void before() {
+            for (int i = 1; i <= 5; i++) {
+                var todo = new Todo();
+                todo.setDescription("todo " + i);
+                todo.setTargetDate(LocalDate.now().plusDays(i));
+                todo.setDone(i % 2 == 0);
+                todo.setUserAccount(userAccount);
+                todoRepository.save(todo);
+            }
+        }
+
+        @Test
+        @DisplayName("Test that the pages follow each other without gaps or duplicates")
+        public void test1() {
+            var firstPage = todoRepository.findFirstPage(userAccount.getId(), PageRequest.of(0, 2));
+            assertThat(firstPage).extracting(TodoSummary::getDescriptionPreview).containsExactly("todo 1", "todo 2");
+            var last = firstPage.get(1);
+            var secondPage = todoRepository.findPageAfter(userAccount.getId(), last.getTargetDate(), last.getId(),
+                    PageRequest.of(0, 2));
+            assertThat(secondPage).extracting(TodoSummary::getDescriptionPreview).containsExactly("todo 3", "todo 4");
+            last = secondPage.get(1);
+            var thirdPage = todoRepository.findPageAfter(userAccount.getId(), last.getTargetDate(), last.getId(),
+                    PageRequest.of(0, 2));
+            assertThat(thirdPage).extracting(TodoSummary::getDescriptionPreview).containsExactly("todo 5");
+        }
+
+        @Test
+        @DisplayName("Test that only the todos with the requested done value are returned")
+        public void test2() {
+            var firstPage = todoRepository.findFirstPageByDone(userAccount.getId(), false, PageRequest.of(0, 2));
+            assertThat(firstPage).extracting(TodoSummary::getDescriptionPreview).containsExactly("todo 1", "todo 3");
+            var last = firstPage.get(1);
+            var secondPage = todoRepository.findPageAfterByDone(userAccount.getId(), false,
+                    last.getTargetDate(), last.getId(), PageRequest.of(0, 2));
+            assertThat(secondPage).extracting(TodoSummary::getDescriptionPreview).containsExactly("todo 5");
+        }
+
+        @Test
+        @DisplayName("Test that the todos of another UserAccount aren't returned")
+        public void test3() {
+            assertThat(todoRepository.findFirstPage(UUID.randomUUID(), PageRequest.of(0, 10))).isEmpty();
+        }
+    }
+
+    private String readDescription(UUID id) {
+        var descriptionId = todoRepository.findDescriptionIdByIdAndUserAccountId(id, userAccount.getId()).get();
+        return transactionTemplate.execute(status -> {
+            try (var chunks = todoRepository.streamDescriptionChunks(descriptionId)) {
+                return chunks.collect(Collectors.joining());
+            }
+        });
+    }
+
     @Test
     @DisplayName("Should fail because UserAccount is null")
     public void testThatUserAccountIsNotNull() {
@@ -167,6 +167,15 @@ public class UserAccountRepositoryTest extends ProductionDatabaseBaseTest {
                     .isInstanceOf(DataIntegrityViolationException.class)
                     .hasRootCauseInstanceOf(PSQLException.class);
         }
+
+        @Test
+        @DisplayName("Test that existsByUsername only finds the saved username")
+        public void test7() {
+            assertThat(userAccountRepository.existsByUsername(randomUserName)).isFalse();
+            userAccountRepository.save(userAccount);
+            assertThat(userAccountRepository.existsByUsername(randomUserName)).isTrue();
+            assertThat(userAccountRepository.existsByUsername(randomUserName + "1")).isFalse();
+        }
     }
 
     @Nested
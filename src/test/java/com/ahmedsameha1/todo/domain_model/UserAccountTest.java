@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,6 +38,15 @@ public class UserAccountTest {
         assertThat(userAccount.isAccountNonLocked()).isTrue();
     }
 
+    @Test
+    public void testIsAccountNonLockedUntil() {
+        userAccount.setLockedUntil(LocalDateTime.now().plusMinutes(1));
+        assertThat(userAccount.isAccountNonLocked()).isFalse();
+        assertThat(userAccount.isLocked()).isFalse();
+        userAccount.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+        assertThat(userAccount.isAccountNonLocked()).isTrue();
+    }
+
     @Test
     public void testIsAccountNonExpired() {
         assertThat(userAccount.isAccountNonExpired()).isTrue();
@@ -0,0 +1,157 @@
+package com.ahmedsameha1.todo.email_verification;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationOutboxEntry;
+import com.ahmedsameha1.todo.domain_model.Gender;
+import com.ahmedsameha1.todo.domain_model.ProductionDatabaseBaseTest;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.ahmedsameha1.todo.service.UserAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EmailVerificationOutboxTest extends ProductionDatabaseBaseTest {
+    @Autowired
+    private UserAccountService userAccountService;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserAccount userAccount;
+
+    @BeforeEach
+    public void before() {
+        userAccount = newUserAccount();
+    }
+
+    @Test
+    @DisplayName("Test that registering a UserAccount writes its outbox entry")
+    public void test1() {
+        userAccount = userAccountService.registerUserAccount(userAccount, new MockHttpServletRequest());
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from email_verification_outbox where user_account_id = ?",
+                Integer.class, userAccount.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test that concurrent claims skip the locked rows instead of waiting or sharing them")
+    public void test2() throws Exception {
+        // A UserAccount has only one unclaimed entry
+        for (int i = 0; i < 4; i++) {
+            var entry = new EmailVerificationOutboxEntry();
+            entry.setUserAccount(userAccountRepository.save(newUserAccount()));
+            entry.setAppUrl("http://localhost:8080");
+            entry.setLocale(Locale.ENGLISH);
+            emailVerificationOutboxRepository.save(entry);
+        }
+        var claimed = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            var now = LocalDateTime.now();
+            var entries = emailVerificationOutboxRepository.claim(now, now.plusMinutes(5), 5, 2);
+            claimed.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return entries;
+        }));
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+        // The first transaction still holds its rows
+        var second = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            var now = LocalDateTime.now();
+            return emailVerificationOutboxRepository.claim(now, now.plusMinutes(5), 5, 10);
+        })).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        var firstIds = first.get(10, TimeUnit.SECONDS).stream().map(EmailVerificationOutboxEntry::getId);
+        assertThat(second).extracting(EmailVerificationOutboxEntry::getId)
+                .doesNotContainAnyElementsOf(firstIds::iterator);
+    }
+
+    @Test
+    @DisplayName("Test that an entry is no longer claimed once its claims reach the attempts limit")
+    public void test3() {
+        userAccount = userAccountRepository.save(userAccount);
+        // The entry is never committed, so the scheduled relay can't claim it in between
+        transactionTemplate.executeWithoutResult(status -> {
+            var entry = new EmailVerificationOutboxEntry();
+            entry.setUserAccount(userAccount);
+            entry.setAppUrl("http://localhost:8080");
+            entry.setLocale(Locale.ENGLISH);
+            var id = emailVerificationOutboxRepository.saveAndFlush(entry).getId();
+            for (int i = 0; i < 2; i++) {
+                // Every claim expired right away, as if MailDispatcher gave up on the email
+                assertThat(emailVerificationOutboxRepository
+                        .claim(LocalDateTime.now(), LocalDateTime.now().minusMinutes(1), 2, 10))
+                        .extracting(EmailVerificationOutboxEntry::getId).contains(id);
+            }
+            assertThat(emailVerificationOutboxRepository
+                    .claim(LocalDateTime.now(), LocalDateTime.now().plusMinutes(5), 2, 10))
+                    .extracting(EmailVerificationOutboxEntry::getId).doesNotContain(id);
+            assertThat(jdbcTemplate.queryForObject("select attempts from email_verification_outbox where id = ?",
+                    Integer.class, id)).isEqualTo(2);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    @DisplayName("Test that a UserAccount can't have two entries waiting for their first claim")
+    public void test4() {
+        userAccount = userAccountRepository.save(userAccount);
+        var first = emailVerificationOutboxRepository.save(newEntry());
+        assertThatThrownBy(() -> emailVerificationOutboxRepository.save(newEntry()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        jdbcTemplate.update("update email_verification_outbox set attempts = 1 where id = ?", first.getId());
+        emailVerificationOutboxRepository.save(newEntry());
+        assertThat(emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0)).isTrue();
+    }
+
+    private EmailVerificationOutboxEntry newEntry() {
+        var entry = new EmailVerificationOutboxEntry();
+        entry.setUserAccount(userAccount);
+        entry.setAppUrl("http://localhost:8080");
+        entry.setLocale(Locale.ENGLISH);
+        // Held as if it was claimed, so the scheduled relay leaves it alone
+        entry.setClaimedUntil(LocalDateTime.now().plusHours(1));
+        return entry;
+    }
+
+    private static UserAccount newUserAccount() {
+        var userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("ffffff3Q");
+        userAccount.setFirstName("user2");
+        userAccount.setLastName("user2");
+        userAccount.setGender(Gender.MALE);
+        userAccount.setBirthDay(LocalDate.of(2010, 10, 10));
+        userAccount.setEmail("user2@user2.com");
+        return userAccount;
+    }
+}
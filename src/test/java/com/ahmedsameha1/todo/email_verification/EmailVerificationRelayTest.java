@@ -0,0 +1,97 @@
+package com.ahmedsameha1.todo.email_verification;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationOutboxEntry;
+import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.mail.MailDispatcher;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
+import com.ahmedsameha1.todo.service.UserAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailVerificationRelayTest {
+    @Mock
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
+
+    @Mock
+    private UserAccountService userAccountService;
+
+    @Mock
+    private MailDispatcher mailDispatcher;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private EmailVerificationRelay emailVerificationRelay;
+
+    private EmailVerificationOutboxEntry entry;
+
+    @BeforeEach
+    public void before() {
+        ReflectionTestUtils.setField(emailVerificationRelay, "batchSize", 10);
+        ReflectionTestUtils.setField(emailVerificationRelay, "claimDuration", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(emailVerificationRelay, "maxAttempts", 5);
+        var userAccount = new UserAccount();
+        userAccount.setEmail("user@user.com");
+        entry = new EmailVerificationOutboxEntry();
+        ReflectionTestUtils.setField(entry, "id", UUID.randomUUID());
+        entry.setUserAccount(userAccount);
+        entry.setAppUrl("http://localhost:8080");
+        entry.setLocale(Locale.ENGLISH);
+        var emailVerificationToken = new EmailVerificationToken();
+        emailVerificationToken.setToken(EmailVerificationToken.newToken());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(emailVerificationOutboxRepository.claim(any(), any(), eq(5), anyInt())).thenReturn(List.of(entry));
+        when(userAccountService.createEmailVerificationToken(userAccount)).thenReturn(emailVerificationToken);
+        when(messageSource.getMessage("emailVerificationMessage", null, Locale.ENGLISH)).thenReturn("Verify");
+    }
+
+    @Test
+    @DisplayName("Test that the entry is deleted once its email is sent")
+    public void test1() {
+        when(mailDispatcher.dispatch(any(SimpleMailMessage.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        emailVerificationRelay.relay();
+        verify(mailDispatcher).dispatch(argThat(email -> email.getTo()[0].equals("user@user.com")
+                && email.getText().startsWith("Verify")), any(Runnable.class));
+        verify(emailVerificationOutboxRepository).deleteById(entry.getId());
+        verify(emailVerificationOutboxRepository, never()).releaseClaim(any());
+    }
+
+    @Test
+    @DisplayName("Test that the claim is released when the email can't be queued")
+    public void test2() {
+        when(mailDispatcher.dispatch(any(SimpleMailMessage.class), any(Runnable.class))).thenReturn(false);
+        emailVerificationRelay.relay();
+        verify(emailVerificationOutboxRepository).releaseClaim(entry.getId());
+        verify(emailVerificationOutboxRepository, never()).deleteById(any());
+    }
+}
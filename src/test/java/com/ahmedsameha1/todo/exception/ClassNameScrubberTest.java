@@ -0,0 +1,66 @@
+package com.ahmedsameha1.todo.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.ahmedsameha1.todo.Constants.REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClassNameScrubberTest {
+    private static final Pattern FULLY_QUALIFIED_CLASS_NAME = Pattern.compile("[a-zA-Z_]\\w*(\\.[a-zA-Z_]\\w*)+");
+
+    @Test
+    @DisplayName("Test that the class names of a Jackson message are replaced with their simple names")
+    public void test1() {
+        var message = "Cannot deserialize instance of `com.ahmedsameha1.todo.domain_model.UserAccount`"
+                + " out of START_ARRAY token\n at [Source: (PushbackInputStream); line: 1, column: 1]";
+        var scrubbed = ClassNameScrubber.scrub(message);
+        assertThat(scrubbed).isEqualTo("Cannot deserialize instance of `UserAccount`"
+                + " out of START_ARRAY token\n at [Source: (PushbackInputStream); line: 1, column: 1]");
+        assertThat(scrubbed).matches(REGEX_FOR_NON_FULLY_QUALIFIED_CLASS_NAME_MESSAGE);
+    }
+
+    @Test
+    @DisplayName("Test that a message without class names is returned as it is")
+    public void test2() {
+        var message = "Unexpected end-of-input: expected close marker for Object (start marker at [line: 1])";
+        assertThat(ClassNameScrubber.scrub(message)).isSameAs(message);
+        assertThat(ClassNameScrubber.scrub("")).isEmpty();
+        assertThat(ClassNameScrubber.scrub("version 1.2 of a.1b")).isEqualTo("version 1.2 of a.1b");
+    }
+
+    @Test
+    @DisplayName("Test that only the first MAXIMUM_MESSAGE_LENGTH characters of a message are kept")
+    public void test3() {
+        var message = "a".repeat(ClassNameScrubber.MAXIMUM_MESSAGE_LENGTH) + ".b" + "_.".repeat(100_000);
+        assertThat(ClassNameScrubber.scrub(message)).isEqualTo("a".repeat(ClassNameScrubber.MAXIMUM_MESSAGE_LENGTH));
+        var longName = "a.".repeat(ClassNameScrubber.MAXIMUM_MESSAGE_LENGTH) + "b";
+        assertThat(ClassNameScrubber.scrub(longName)).isEqualTo("a.");
+    }
+
+    @Test
+    @DisplayName("Test that random messages are scrubbed as the regex replaces every name it finds")
+    public void test4() {
+        var random = new Random(20200601);
+        var alphabet = "aZ_9.. .`$\n\"\u00e9".toCharArray();
+        for (int i = 0; i < 100_000; i++) {
+            var message = new char[random.nextInt(40)];
+            for (int j = 0; j < message.length; j++) {
+                message[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            var input = new String(message);
+            assertThat(ClassNameScrubber.scrub(input)).as(input).isEqualTo(regexScrub(input));
+        }
+    }
+
+    private static String regexScrub(String message) {
+        return FULLY_QUALIFIED_CLASS_NAME.matcher(message).replaceAll(matchResult -> {
+            var name = matchResult.group();
+            return Matcher.quoteReplacement(name.substring(name.lastIndexOf('.') + 1));
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmedsameha1.todo.exception;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class ErrorMessagesTest {
+    private MessageSource messageSource;
+    private ErrorMessages errorMessages;
+
+    @BeforeEach
+    public void before() {
+        var resourceBundleMessageSource = new ResourceBundleMessageSource();
+        resourceBundleMessageSource.setBasename("i18n/messages");
+        resourceBundleMessageSource.setDefaultEncoding("UTF-8");
+        resourceBundleMessageSource.setFallbackToSystemLocale(false);
+        messageSource = spy(resourceBundleMessageSource);
+        errorMessages = new ErrorMessages(messageSource, List.of("en", "ar"));
+        clearInvocations(messageSource);
+    }
+
+    @Test
+    @DisplayName("Test that every message is resolved at startup for every language")
+    public void test1() {
+        var arabic = messageSource.getMessage("error.badCredentialsProblem", null, new Locale("ar"));
+        clearInvocations(messageSource);
+        assertThat(errorMessages.get("error.badCredentialsProblem", Locale.ENGLISH))
+                .isEqualTo("Username/password combination is wrong");
+        assertThat(errorMessages.get("error.badCredentialsProblem", new Locale("ar")))
+                .isEqualTo(arabic)
+                .isNotEqualTo("Username/password combination is wrong");
+        for (var code : ErrorMessages.CODES) {
+            assertThat(errorMessages.get(code, Locale.ENGLISH)).isNotBlank();
+            assertThat(errorMessages.get(code, new Locale("ar"))).isNotBlank();
+        }
+        verifyNoInteractions(messageSource);
+    }
+
+    @Test
+    @DisplayName("Test that the countries of a supported language share its messages")
+    public void test2() {
+        assertThat(errorMessages.get("error.signInThrottledProblem", new Locale("ar", "EG")))
+                .isEqualTo(errorMessages.get("error.signInThrottledProblem", new Locale("ar")));
+        assertThat(errorMessages.get("error.signInThrottledProblem", Locale.US))
+                .isEqualTo("Too many failed sign in attempts");
+        verifyNoInteractions(messageSource);
+    }
+
+    @Test
+    @DisplayName("Test that a language that isn't supported goes to the MessageSource")
+    public void test3() {
+        assertThat(errorMessages.get("error.todoNotFoundProblem", Locale.FRENCH))
+                .isEqualTo("There is no such todo");
+        verify(messageSource).getMessage(eq("error.todoNotFoundProblem"), isNull(), eq(Locale.FRENCH));
+    }
+
+    @Test
+    @DisplayName("Test that a message that wasn't resolved at startup goes to the MessageSource")
+    public void test4() {
+        var mockMessageSource = mock(MessageSource.class);
+        errorMessages = new ErrorMessages(mockMessageSource, List.of("en"));
+        when(mockMessageSource.getMessage(eq("error.todoNotFoundProblem"), isNull(), eq(Locale.ENGLISH)))
+                .thenReturn("message");
+        assertThat(errorMessages.get("error.todoNotFoundProblem", Locale.ENGLISH)).isEqualTo("message");
+    }
+}
@@ -0,0 +1,74 @@
+package com.ahmedsameha1.todo.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+import static com.ahmedsameha1.todo.Constants.ErrorCode.USER_EXISTS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ErrorResponseTemplatesTest {
+    // The ObjectMapper of Spring Boot writes the dates as ISO-8601 strings
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final Instant timestamp = Instant.parse("2020-06-01T10:15:30.123456Z");
+    private ErrorResponseTemplates errorResponseTemplates;
+
+    @BeforeEach
+    public void before() {
+        var messageSource = new StaticMessageSource();
+        messageSource.addMessage("error.userExistsProblem", Locale.ENGLISH, "There is \"another\" user");
+        messageSource.addMessage("error.userExistsSuggestion", Locale.ENGLISH, "Use another username");
+        messageSource.addMessage("error.userAccountLockedProblem", Locale.ENGLISH, "Locked");
+        messageSource.addMessage("error.userExistsProblem", new Locale("ar"), "\u062d\u0633\u0627\u0628");
+        var errorMessages = new ErrorMessages(messageSource, List.of("en", "ar"));
+        errorResponseTemplates = new ErrorResponseTemplates(errorMessages, List.of("en", "ar"), List.of(
+                new ErrorResponseTemplates.Template("error.userExistsProblem", "error.userExistsSuggestion",
+                        USER_EXISTS),
+                new ErrorResponseTemplates.Template("error.userAccountLockedProblem", null, (short) 0)));
+    }
+
+    @Test
+    @DisplayName("Test that a template writes the same bytes Jackson writes for the ErrorResponse")
+    public void test1() throws Exception {
+        var path = "/sign_up/\"quoted\"\\\u0001/\u0645\u0633\u0627\u0631";
+        var errorResponse = new ErrorResponse();
+        errorResponse.setTimestamp(timestamp);
+        errorResponse.setPath(path);
+        errorResponse.setCode(USER_EXISTS);
+        errorResponse.setMessage("There is \"another\" user");
+        errorResponse.setSuggestion("Use another username");
+        assertThat(errorResponseTemplates.body("error.userExistsProblem", Locale.US, path, timestamp))
+                .isEqualTo(objectMapper.writeValueAsBytes(errorResponse));
+    }
+
+    @Test
+    @DisplayName("Test that a template without a suggestion writes the same bytes Jackson writes")
+    public void test2() throws Exception {
+        var errorResponse = new ErrorResponse();
+        errorResponse.setTimestamp(timestamp);
+        errorResponse.setPath("/sign_in");
+        errorResponse.setMessage("Locked");
+        assertThat(errorResponseTemplates.body("error.userAccountLockedProblem", Locale.ENGLISH, "/sign_in",
+                timestamp)).isEqualTo(objectMapper.writeValueAsBytes(errorResponse));
+    }
+
+    @Test
+    @DisplayName("Test that there is no template for a language without the messages or that isn't supported")
+    public void test3() {
+        assertThat(errorResponseTemplates.body("error.userExistsProblem", new Locale("ar"), "/sign_up",
+                timestamp)).isNull();
+        assertThat(errorResponseTemplates.body("error.userExistsProblem", Locale.FRENCH, "/sign_up",
+                timestamp)).isNull();
+        assertThat(errorResponseTemplates.body("error.todoNotFoundProblem", Locale.ENGLISH, "/todos",
+                timestamp)).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ahmedsameha1.todo.exception;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PreDispatchInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private PreDispatchInterceptor interceptor;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new PreDispatchInterceptor(meterRegistry);
+        request = new MockHttpServletRequest("GET", "/todos");
+    }
+
+    @Test
+    @DisplayName("Test that the request parameters of the handler method are accepted")
+    public void test1() throws Exception {
+        request.addParameter("after", "1");
+        request.addParameter("size", "10");
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should fail with every request parameter the handler method doesn't have")
+    public void test2() {
+        request.addParameter("size", "10");
+        request.addParameter("xxx", "1");
+        request.addParameter("yyy", "1");
+        assertThatThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod()))
+                .isInstanceOf(UnsupportedRequestParameterException.class)
+                .extracting("unsupportedRequestParameters").asList().containsExactly("xxx", "yyy");
+    }
+
+    @Test
+    @DisplayName("Test that a new HandlerMethod of the same method is checked the same way")
+    public void test3() throws Exception {
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod())).isTrue();
+        request.addParameter("size", "10");
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod())).isTrue();
+        request.addParameter("xxx", "1");
+        assertThatThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod()))
+                .isInstanceOf(UnsupportedRequestParameterException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail because the Http method isn't allowed, before the request parameters are checked")
+    public void test4() {
+        request.addParameter("xxx", "1");
+        for (var method : List.of("HEAD", "OPTIONS", "PATCH", "TRACE", "VIEW")) {
+            request.setMethod(method);
+            assertThatThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod()))
+                    .isInstanceOf(HttpRequestMethodNotSupportedException.class);
+        }
+        assertThat(requestParametersTimer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test that each stage is timed, and the method of a handler that isn't a HandlerMethod is checked")
+    public void test5() throws Exception {
+        interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod());
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+        request.setMethod("PATCH");
+        assertThatThrownBy(() -> interceptor.preHandle(request, new MockHttpServletResponse(), new Object()))
+                .isInstanceOf(HttpRequestMethodNotSupportedException.class);
+        assertThat(meterRegistry.get(PreDispatchInterceptor.METRIC_NAME).tag("stage", "http_method").timer().count())
+                .isEqualTo(3);
+        assertThat(requestParametersTimer().count()).isEqualTo(1);
+    }
+
+    private Timer requestParametersTimer() {
+        return meterRegistry.get(PreDispatchInterceptor.METRIC_NAME).tag("stage", "request_parameters").timer();
+    }
+
+    private static HandlerMethod handlerMethod() throws NoSuchMethodException {
+        return new HandlerMethod(new Controller(), Controller.class.getMethod("list", String.class, int.class));
+    }
+
+    public static class Controller {
+        public void list(@RequestParam(name = "after", required = false) String after,
+                         @RequestParam(name = "size") int size) {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ahmedsameha1.todo.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+import static com.ahmedsameha1.todo.Constants.ErrorCode.USER_EXISTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.ResultMatcher.matchAll;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The controller tests mock the MessageSource, so only the ErrorResponse fallback of the handlers is reached there
+// Here the messages are the real ones, so the pre-encoded bodies are answered
+public class ResponseExceptionHandlerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ResourceBundleMessageSource messageSource;
+    private ErrorResponseTemplates errorResponseTemplates;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() {
+        messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setFallbackToSystemLocale(false);
+        var responseExceptionHandler = new ResponseExceptionHandler();
+        ReflectionTestUtils.setField(responseExceptionHandler, "messageSource", messageSource);
+        ReflectionTestUtils.setField(responseExceptionHandler, "languages", List.of("en", "ar"));
+        responseExceptionHandler.resolveErrorMessages();
+        errorResponseTemplates = (ErrorResponseTemplates) ReflectionTestUtils
+                .getField(responseExceptionHandler, "errorResponseTemplates");
+        mockMvc = MockMvcBuilders.standaloneSetup(new ThrowingController())
+                .setControllerAdvice(responseExceptionHandler).build();
+    }
+
+    @Test
+    @DisplayName("Test that a UserExistsException is answered with its pre-encoded body")
+    public void test1() throws Exception {
+        var response = mockMvc.perform(get("/user_exists").locale(Locale.ENGLISH))
+                .andExpect(matchAll(
+                        status().isConflict(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        jsonPath("$.path", Matchers.is("/user_exists")),
+                        jsonPath("$.code", Matchers.is((int) USER_EXISTS)),
+                        jsonPath("$.message",
+                                Matchers.is("There is already another user account with the same username")),
+                        jsonPath("$.suggestion", Matchers.is("Use another username"))))
+                .andReturn().getResponse();
+        assertPreEncoded(response, "error.userExistsProblem", Locale.ENGLISH, "/user_exists");
+    }
+
+    @Test
+    @DisplayName("Test that a LockedException is answered with its pre-encoded body")
+    public void test2() throws Exception {
+        var response = mockMvc.perform(get("/locked").locale(Locale.ENGLISH))
+                .andExpect(matchAll(
+                        status().isLocked(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        jsonPath("$.path", Matchers.is("/locked")),
+                        jsonPath("$.message", Matchers.is("Sorry, your account is locked")),
+                        jsonPath("$.suggestion").doesNotExist()))
+                .andReturn().getResponse();
+        assertPreEncoded(response, "error.userAccountLockedProblem", Locale.ENGLISH, "/locked");
+    }
+
+    @Test
+    @DisplayName("Test that a BadCredentialsException is answered with its pre-encoded body in the language asked")
+    public void test3() throws Exception {
+        var response = mockMvc.perform(get("/bad_credentials").locale(Locale.ENGLISH))
+                .andExpect(matchAll(
+                        status().isUnauthorized(),
+                        content().contentType(MediaType.APPLICATION_JSON),
+                        jsonPath("$.path", Matchers.is("/bad_credentials")),
+                        jsonPath("$.message", Matchers.is("Username/password combination is wrong")),
+                        jsonPath("$.suggestion", Matchers.is("Use a correct username/password combination"))))
+                .andReturn().getResponse();
+        assertPreEncoded(response, "error.badCredentialsProblem", Locale.ENGLISH, "/bad_credentials");
+        var arabic = new Locale("ar", "EG");
+        response = mockMvc.perform(get("/bad_credentials").locale(arabic))
+                .andExpect(matchAll(
+                        status().isUnauthorized(),
+                        content().contentType(MediaType.APPLICATION_JSON)))
+                .andReturn().getResponse();
+        // The body is UTF-8 without a charset in the Content-Type, so it is read as bytes
+        var body = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(body.get("message").asText())
+                .isEqualTo(messageSource.getMessage("error.badCredentialsProblem", null, arabic));
+        assertThat(body.get("suggestion").asText())
+                .isEqualTo(messageSource.getMessage("error.badCredentialsSuggestion", null, arabic));
+        assertPreEncoded(response, "error.badCredentialsProblem", arabic, "/bad_credentials");
+    }
+
+    // The fallback ErrorResponse has the same fields, the bytes of the template at the timestamp of the response
+    // are what tells them apart
+    private void assertPreEncoded(MockHttpServletResponse response, String problem, Locale locale, String path)
+            throws Exception {
+        var body = response.getContentAsByteArray();
+        var timestamp = Instant.parse(objectMapper.readTree(body).get("timestamp").asText());
+        assertThat(body).isEqualTo(errorResponseTemplates.body(problem, locale, path, timestamp));
+    }
+
+    @RestController
+    static class ThrowingController {
+        @GetMapping("/user_exists")
+        public void userExists() {
+            throw new UserExistsException();
+        }
+
+        @GetMapping("/locked")
+        public void locked() {
+            throw new LockedException("Locked");
+        }
+
+        @GetMapping("/bad_credentials")
+        public void badCredentials() {
+            throw new BadCredentialsException("Bad credentials");
+        }
+    }
+}
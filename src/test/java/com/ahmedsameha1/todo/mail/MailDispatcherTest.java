@@ -0,0 +1,131 @@
+package com.ahmedsameha1.todo.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// GreenMail is an SMTP server running in the test, so the messages go over a real SMTP connection
+public class MailDispatcherTest {
+    private GreenMail greenMail;
+    private JavaMailSenderImpl javaMailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private MailDispatcher mailDispatcher;
+
+    @BeforeEach
+    public void before() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void after() {
+        if (mailDispatcher != null) {
+            mailDispatcher.shutdown();
+        }
+        greenMail.stop();
+    }
+
+    private MailDispatcher mailDispatcher(JavaMailSender javaMailSender, int queueCapacity) {
+        return new MailDispatcher(javaMailSender, meterRegistry, queueCapacity, 2, 20, 3,
+                Duration.ofMillis(200), Duration.ofMillis(100));
+    }
+
+    private static SimpleMailMessage message(int i) {
+        var message = new SimpleMailMessage();
+        message.setFrom("todo@todo.com");
+        message.setTo("user" + i + "@user.com");
+        message.setSubject("Registration Confirmation");
+        message.setText("message " + i);
+        return message;
+    }
+
+    @Test
+    @DisplayName("Test that the queued messages are delivered and measured")
+    public void test1() {
+        greenMail.start();
+        mailDispatcher = mailDispatcher(javaMailSender, 100);
+        for (int i = 0; i < 50; i++) {
+            assertThat(mailDispatcher.dispatch(message(i))).isTrue();
+        }
+        assertThat(greenMail.waitForIncomingEmail(10000, 50)).isTrue();
+        assertThat(greenMail.getReceivedMessages()).hasSize(50);
+        assertThat(mailDispatcher.queueDepth()).isZero();
+        assertThat(meterRegistry.get("mail.dispatch.sent").counter().count()).isEqualTo(50);
+        assertThat(meterRegistry.get("mail.dispatch.send").timer().count()).isPositive();
+        assertThat(meterRegistry.get("mail.dispatch.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test that the messages are retried until the SMTP server is up")
+    public void test2() throws InterruptedException {
+        mailDispatcher = mailDispatcher(javaMailSender, 100);
+        assertThat(mailDispatcher.dispatch(message(1))).isTrue();
+        Thread.sleep(100);
+        greenMail.start();
+        assertThat(greenMail.waitForIncomingEmail(10000, 1)).isTrue();
+        assertThat(meterRegistry.get("mail.dispatch.failed").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test that several queued messages share one send call")
+    public void test3() throws InterruptedException {
+        var javaMailSender = mock(JavaMailSender.class);
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var batchSizes = new CopyOnWriteArrayList<Integer>();
+        doAnswer(invocation -> {
+            batchSizes.add(((SimpleMailMessage[]) invocation.getRawArguments()[0]).length);
+            blocked.countDown();
+            release.await();
+            return null;
+        }).when(javaMailSender).send(any(SimpleMailMessage[].class));
+        mailDispatcher = new MailDispatcher(javaMailSender, meterRegistry, 100, 1, 20, 3,
+                Duration.ofMillis(200), Duration.ofMillis(100));
+        mailDispatcher.dispatch(message(0));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 10; i++) {
+            mailDispatcher.dispatch(message(i));
+        }
+        release.countDown();
+        verify(javaMailSender, timeout(5000).times(2)).send(any(SimpleMailMessage[].class));
+        assertThat(batchSizes).containsExactly(1, 10);
+    }
+
+    @Test
+    @DisplayName("Test that dispatch gives up when the queue stays full")
+    public void test4() throws InterruptedException {
+        var javaMailSender = mock(JavaMailSender.class);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(javaMailSender).send(any(SimpleMailMessage[].class));
+        mailDispatcher = new MailDispatcher(javaMailSender, meterRegistry, 1, 1, 20, 3,
+                Duration.ofMillis(200), Duration.ofMillis(100));
+        mailDispatcher.dispatch(message(0));
+        verify(javaMailSender, timeout(5000)).send(any(SimpleMailMessage[].class));
+        assertThat(mailDispatcher.dispatch(message(1))).isTrue();
+        assertThat(mailDispatcher.dispatch(message(2))).isFalse();
+        assertThat(meterRegistry.get("mail.dispatch.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BoundedPasswordEncoderTest {
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    @BeforeEach
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = mock(PasswordEncoder.class);
+        boundedPasswordEncoder = new BoundedPasswordEncoder(passwordEncoder, 1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    public void after() {
+        boundedPasswordEncoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test that the wrapped encoder is called on a worker and timed")
+    public void test1() {
+        when(passwordEncoder.encode("ffffff3Q")).thenAnswer(invocation -> Thread.currentThread().getName());
+        when(passwordEncoder.matches("ffffff3Q", "hash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("hash")).thenReturn(true);
+        assertThat(boundedPasswordEncoder.encode("ffffff3Q")).startsWith("password-encoder-");
+        assertThat(boundedPasswordEncoder.matches("ffffff3Q", "hash")).isTrue();
+        assertThat(boundedPasswordEncoder.upgradeEncoding("hash")).isTrue();
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.METRIC_PREFIX + ".hash")
+                .tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.METRIC_PREFIX + ".queue.wait")
+                .tag("operation", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test that a hash is rejected right away when the worker is busy and the queue is full")
+    public void test2() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(passwordEncoder.matches(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        var running = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.matches("ffffff3Q", "hash"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        var queued = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.matches("ffffff3Q", "hash"));
+        while (boundedPasswordEncoder.queueDepth() == 0) {
+            Thread.sleep(10);
+        }
+        assertThatThrownBy(() -> boundedPasswordEncoder.matches("ffffff3Q", "hash"))
+                .isInstanceOf(PasswordHashingUnavailableException.class);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.METRIC_PREFIX + ".rejected").counter().count())
+                .isEqualTo(1);
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ahmedsameha1.todo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static com.ahmedsameha1.todo.security.ClientAddressResolver.FORWARDED_FOR_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientAddressResolverTest {
+    private static final String TRUSTED_PROXIES = "10\\.0\\.\\d{1,3}\\.\\d{1,3}";
+
+    @Test
+    @DisplayName("Test that X-Forwarded-For is ignored when no proxy is trusted")
+    public void test1() {
+        var clientAddressResolver = new ClientAddressResolver("");
+        assertThat(clientAddressResolver.resolve(request("10.0.0.1", "203.0.113.7"))).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    @DisplayName("Test that the client is the last address that isn't a trusted proxy")
+    public void test2() {
+        var clientAddressResolver = new ClientAddressResolver(TRUSTED_PROXIES);
+        assertThat(clientAddressResolver.resolve(request("10.0.0.1", "198.51.100.1, 203.0.113.7, 10.0.0.2")))
+                .isEqualTo("203.0.113.7");
+        assertThat(clientAddressResolver.resolve(request("10.0.0.1", null))).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    @DisplayName("Test that X-Forwarded-For is ignored when the request doesn't come from a trusted proxy")
+    public void test3() {
+        var clientAddressResolver = new ClientAddressResolver(TRUSTED_PROXIES);
+        assertThat(clientAddressResolver.resolve(request("203.0.113.7", "198.51.100.1")))
+                .isEqualTo("203.0.113.7");
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (forwardedFor != null) {
+            request.addHeader(FORWARDED_FOR_HEADER, forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JwtTokenCodecTest {
+    private final UUID id = UUID.randomUUID();
+    private JwtTokenCodec jwtTokenCodec;
+    private UserAccount userAccount;
+
+    @BeforeEach
+    public void before() {
+        jwtTokenCodec = new JwtTokenCodec(secret());
+        userAccount = new UserAccount() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+        };
+        userAccount.setUsername("user1");
+        userAccount.setEnabled(true);
+    }
+
+    @Test
+    @DisplayName("Test that a decoded token has the encoded subject")
+    public void test1() {
+        var jwt = jwtTokenCodec.encode(userAccount, Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+        assertThat(jwtTokenCodec.decode(jwt).getSubject()).isEqualTo("user1");
+        assertThat(jwtTokenCodec.decode(jwt).getSubject()).isEqualTo("user1");
+    }
+
+    @Test
+    @DisplayName("Should fail because the token is expired")
+    public void test2() {
+        var jwt = jwtTokenCodec.encode(userAccount, Date.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+        assertThatThrownBy(() -> jwtTokenCodec.decode(jwt)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail because the token is signed with another key")
+    public void test3() {
+        var jwt = new JwtTokenCodec(secret())
+                .encode(userAccount, Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+        assertThatThrownBy(() -> jwtTokenCodec.decode(jwt)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("Test that a stateless principal is built from the token claims")
+    public void test4() {
+        var jwt = jwtTokenCodec.encode(userAccount, Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+        var jwtPrincipal = JwtPrincipal.of(jwtTokenCodec.decode(jwt));
+        assertThat(jwtPrincipal.getId()).isEqualTo(id);
+        assertThat(jwtPrincipal.getUsername()).isEqualTo("user1");
+        assertThat(jwtPrincipal.isEnabled()).isTrue();
+        assertThat(jwtPrincipal.isAccountNonLocked()).isTrue();
+        assertThat(jwtPrincipal.getTokenVersion()).isEqualTo(0);
+    }
+
+    private String secret() {
+        return Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.TodoApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PasswordEncoderTest {
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void before() {
+        passwordEncoder = TodoApplication.delegatingPasswordEncoder(5);
+    }
+
+    @Test
+    @DisplayName("Test that a new hash is prefixed with the bcrypt id and doesn't need an upgrade")
+    public void test1() {
+        var hash = passwordEncoder.encode("ffffff3Q");
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(passwordEncoder.matches("ffffff3Q", hash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test that a hash stored without a prefix still matches and needs an upgrade")
+    public void test2() {
+        var hash = new BCryptPasswordEncoder(5).encode("ffffff3Q");
+        assertThat(passwordEncoder.matches("ffffff3Q", hash)).isTrue();
+        assertThat(passwordEncoder.matches("ffffff3q", hash)).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test that a hash of a lower strength needs an upgrade")
+    public void test3() {
+        var hash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("ffffff3Q");
+        assertThat(passwordEncoder.matches("ffffff3Q", hash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(hash)).isTrue();
+    }
+}
@@ -0,0 +1,57 @@
+package com.ahmedsameha1.todo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PasswordResetThrottleTest {
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    private AtomicLong clock;
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordResetThrottle passwordResetThrottle;
+
+    @BeforeEach
+    public void before() {
+        clock = new AtomicLong();
+        meterRegistry = new SimpleMeterRegistry();
+        passwordResetThrottle = new PasswordResetThrottle(meterRegistry, WINDOW, 3, 5, 1000, clock::get);
+    }
+
+    @Test
+    @DisplayName("Test that the requests of a username are refused once they pass the limit")
+    public void test1() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(passwordResetThrottle.tryAcquire("user1", "10.0.0." + i)).isTrue();
+        }
+        assertThat(passwordResetThrottle.tryAcquire("user1", "10.0.0.9")).isFalse();
+        assertThat(passwordResetThrottle.tryAcquire("user2", "10.0.0.9")).isTrue();
+        assertThat(meterRegistry.counter(PasswordResetThrottle.METRIC_PREFIX + ".rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test that the requests of a remote address are refused past the limit whatever the username")
+    public void test2() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(passwordResetThrottle.tryAcquire("user" + i, "10.0.0.1")).isTrue();
+        }
+        assertThat(passwordResetThrottle.tryAcquire("user9", "10.0.0.1")).isFalse();
+        assertThat(passwordResetThrottle.tryAcquire("user9", "10.0.0.2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test that the requests older than the window aren't counted")
+    public void test3() {
+        for (int i = 0; i < 3; i++) {
+            passwordResetThrottle.tryAcquire("user1", "10.0.0.1");
+        }
+        clock.addAndGet(WINDOW.toNanos() + WINDOW.toNanos() / SlidingWindowCounter.SLOTS);
+        assertThat(passwordResetThrottle.tryAcquire("user1", "10.0.0.1")).isTrue();
+    }
+}
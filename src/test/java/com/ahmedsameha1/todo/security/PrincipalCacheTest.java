@@ -0,0 +1,55 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrincipalCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private UserAccount userAccount;
+
+    @BeforeEach
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(10, Duration.ofMinutes(5), meterRegistry);
+        userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+    }
+
+    @Test
+    @DisplayName("Test that a cached principal is returned and counted as a hit")
+    public void test1() {
+        assertThat(principalCache.getUserFromCache(userAccount.getUsername())).isNull();
+        principalCache.putUserInCache(userAccount);
+        assertThat(principalCache.getUserFromCache(userAccount.getUsername())).isSameAs(userAccount);
+        assertThat(principalCache.stats().missCount()).isEqualTo(1);
+        assertThat(principalCache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test that a removed principal isn't returned anymore")
+    public void test2() {
+        principalCache.putUserInCache(userAccount);
+        principalCache.removeUserFromCache(userAccount.getUsername());
+        assertThat(principalCache.getUserFromCache(userAccount.getUsername())).isNull();
+    }
+
+    @Test
+    @DisplayName("Test that the cache counters are registered as metrics")
+    public void test3() {
+        principalCache.putUserInCache(userAccount);
+        principalCache.getUserFromCache(userAccount.getUsername());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", PrincipalCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", PrincipalCache.CACHE_NAME)
+                .functionCounter()).isNotNull();
+    }
+}
@@ -0,0 +1,117 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.exception.SignInThrottledException;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SignInThrottleTest {
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+    private static final Duration LOCK_DURATION = Duration.ofMinutes(15);
+
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    private AtomicLong clock;
+    private SignInThrottle signInThrottle;
+
+    @BeforeEach
+    public void before() {
+        clock = new AtomicLong();
+        signInThrottle = new SignInThrottle(userAccountRepository, new SimpleMeterRegistry(), WINDOW, 3, 5,
+                LOCK_DURATION, 1000, clock::get);
+    }
+
+    @Test
+    @DisplayName("Test that a username is locked for a while and rejected once it reaches the limit")
+    public void test1() {
+        var userAccount = new UserAccount();
+        ReflectionTestUtils.setField(userAccount, "id", UUID.randomUUID());
+        userAccount.setUsername("user1");
+        when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+        for (int i = 0; i < 3; i++) {
+            signInThrottle.checkAllowed("user1", "10.0.0." + i);
+            signInThrottle.recordFailure("user1", "10.0.0." + i);
+        }
+        assertThatThrownBy(() -> signInThrottle.checkAllowed("user1", "10.0.0.9"))
+                .isInstanceOf(SignInThrottledException.class);
+        assertThatCode(() -> signInThrottle.checkAllowed("user2", "10.0.0.9")).doesNotThrowAnyException();
+        verify(userAccountRepository).lockUntil(eq(userAccount.getId()), argThat(lockedUntil -> Duration
+                .between(LocalDateTime.now(), lockedUntil).compareTo(LOCK_DURATION.minusMinutes(1)) > 0));
+    }
+
+    @Test
+    @DisplayName("Test that a remote address is rejected once it reaches the limit whatever the username")
+    public void test2() {
+        for (int i = 0; i < 5; i++) {
+            signInThrottle.recordFailure("user" + i, "10.0.0.1");
+        }
+        assertThatThrownBy(() -> signInThrottle.checkAllowed("user9", "10.0.0.1"))
+                .isInstanceOf(SignInThrottledException.class);
+        assertThatCode(() -> signInThrottle.checkAllowed("user9", "10.0.0.2")).doesNotThrowAnyException();
+        verify(userAccountRepository, never()).lockUntil(any(), any());
+    }
+
+    @Test
+    @DisplayName("Test that the failures older than the window aren't counted")
+    public void test3() {
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        clock.addAndGet(WINDOW.toNanos() / 2);
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        verify(userAccountRepository).findByUsername("user1");
+        clock.addAndGet(WINDOW.toNanos() / 2 + WINDOW.toNanos() / SlidingWindowCounter.SLOTS);
+        // The first two failures left the window
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        assertThatCode(() -> signInThrottle.checkAllowed("user1", "10.0.0.1")).doesNotThrowAnyException();
+        verifyNoMoreInteractions(userAccountRepository);
+    }
+
+    @Test
+    @DisplayName("Test that a successful sign in clears the failures of the username")
+    public void test4() {
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        signInThrottle.recordSuccess("user1");
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        assertThatCode(() -> signInThrottle.checkAllowed("user1", "10.0.0.2")).doesNotThrowAnyException();
+        verifyNoInteractions(userAccountRepository);
+    }
+
+    @Test
+    @DisplayName("Test that a username is locked when concurrent failures pass the limit without reaching it alone")
+    public void test5() {
+        var userAccount = new UserAccount();
+        ReflectionTestUtils.setField(userAccount, "id", UUID.randomUUID());
+        userAccount.setUsername("user1");
+        when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        // A concurrent failure is counted too, the next failure sees 4 and never exactly 3
+        @SuppressWarnings("unchecked")
+        var usernameFailures = (Cache<String, SlidingWindowCounter>) ReflectionTestUtils
+                .getField(signInThrottle, "usernameFailures");
+        usernameFailures.getIfPresent("user1").increment(clock.get());
+        signInThrottle.recordFailure("user1", "10.0.0.1");
+        verify(userAccountRepository).lockUntil(eq(userAccount.getId()), any());
+    }
+}
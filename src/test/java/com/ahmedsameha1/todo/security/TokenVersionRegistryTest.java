@@ -0,0 +1,66 @@
+package com.ahmedsameha1.todo.security;
+
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenVersionRegistryTest {
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private UserAccount userAccount;
+
+    private TokenVersionRegistry tokenVersionRegistry;
+    private final UUID id = UUID.randomUUID();
+
+    @BeforeEach
+    public void before() {
+        tokenVersionRegistry = new TokenVersionRegistry(userAccountRepository, principalCache,
+                10, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Test that the token version is read from the database only once")
+    public void test1() {
+        when(userAccountRepository.findTokenVersionById(id)).thenReturn(1);
+        assertThat(tokenVersionRegistry.isCurrent(id, 1)).isTrue();
+        assertThat(tokenVersionRegistry.isCurrent(id, 0)).isFalse();
+        verify(userAccountRepository, times(1)).findTokenVersionById(id);
+    }
+
+    @Test
+    @DisplayName("Should fail because there is no UserAccount with this id")
+    public void test2() {
+        when(userAccountRepository.findTokenVersionById(id)).thenReturn(null);
+        assertThat(tokenVersionRegistry.isCurrent(id, 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test that revoking the tokens makes the previous token version stale")
+    public void test3() {
+        when(userAccount.getId()).thenReturn(id);
+        when(userAccount.getUsername()).thenReturn("user1");
+        when(userAccountRepository.findTokenVersionById(id)).thenReturn(0, 1);
+        assertThat(tokenVersionRegistry.isCurrent(id, 0)).isTrue();
+        tokenVersionRegistry.revokeTokens(userAccount);
+        assertThat(tokenVersionRegistry.isCurrent(id, 0)).isFalse();
+        verify(userAccountRepository).incrementTokenVersion(id);
+        verify(principalCache).removeUserFromCache("user1");
+    }
+}
@@ -9,14 +9,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -25,8 +26,11 @@ public class UserDetailsServiceImplTest {
     @Mock
     private UserAccountRepository userAccountRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
-    private UserDetailsService userDetailsService = new UserDetailsServiceImpl();
+    private UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
 
     @Test
     @DisplayName("Should fail because there is no UserAccount with this username")
@@ -65,4 +69,33 @@ public class UserDetailsServiceImplTest {
         verify(userAccountRepository, times(2)).findByUsername("user1");
         verify(userAccountRepository, times(2)).findByUsername("user2");
     }
+
+    @Test
+    @DisplayName("Test that updatePassword writes only the new hash and evicts the cached principal")
+    public void test3() {
+        var userAccount = new UserAccount();
+        var id = UUID.randomUUID();
+        ReflectionTestUtils.setField(userAccount, "id", id);
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("old");
+        when(userAccountRepository.upgradePassword(id, "old", "new")).thenReturn(1);
+        assertThat(userDetailsService.updatePassword(userAccount, "new")).isEqualTo(userAccount);
+        assertThat(userAccount.getPassword()).isEqualTo("new");
+        verify(userAccountRepository, never()).save(any());
+        verify(principalCache).removeUserFromCache(userAccount.getUsername());
+    }
+
+    @Test
+    @DisplayName("Test that updatePassword keeps a hash that changed since the sign in checked it")
+    public void test4() {
+        var userAccount = new UserAccount();
+        var id = UUID.randomUUID();
+        ReflectionTestUtils.setField(userAccount, "id", id);
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("old");
+        when(userAccountRepository.upgradePassword(id, "old", "new")).thenReturn(0);
+        userDetailsService.updatePassword(userAccount, "new");
+        assertThat(userAccount.getPassword()).isEqualTo("old");
+        verify(principalCache, never()).removeUserFromCache(any());
+    }
 }
@@ -0,0 +1,100 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
+import com.ahmedsameha1.todo.domain_model.Gender;
+import com.ahmedsameha1.todo.domain_model.ProductionDatabaseBaseTest;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.EmailVerificationTokenRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiredTokenSweeperTest extends ProductionDatabaseBaseTest {
+    @Autowired
+    private EmailVerificationTokenRepository emailVerificationTokenRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Test that the expired tokens are deleted in batches and the others are kept")
+    public void test1() {
+        var expiredTokenIds = new ArrayList<UUID>();
+        for (int i = 0; i < 3; i++) {
+            expiredTokenIds.add(saveEmailVerificationToken(LocalDateTime.now().plusSeconds(1)).getId());
+        }
+        var validToken = saveEmailVerificationToken(LocalDateTime.now().plusDays(1));
+        // Swept as of a few seconds later rather than waiting for the tokens to expire
+        var now = LocalDateTime.now().plusSeconds(5);
+        int deleted;
+        do {
+            deleted = emailVerificationTokenRepository.deleteExpired(now, 2);
+            assertThat(deleted).isLessThanOrEqualTo(2);
+        } while (deleted == 2);
+        assertThat(emailVerificationTokenRepository.findAllById(expiredTokenIds)).isEmpty();
+        assertThat(emailVerificationTokenRepository.findById(validToken.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("Test that only the old UserAccounts that were never enabled and can't be verified are deleted")
+    public void test2() {
+        var neverEnabled = saveUserAccount(false);
+        var enabled = saveUserAccount(true);
+        var pendingVerification = saveUserAccount(false);
+        var expiredVerification = saveUserAccount(false);
+        var recent = saveUserAccount(false);
+        saveEmailVerificationToken(pendingVerification, LocalDateTime.now().plusDays(1));
+        saveEmailVerificationToken(expiredVerification, LocalDateTime.now().plusSeconds(1));
+        for (var userAccount : new UserAccount[]{neverEnabled, enabled, pendingVerification, expiredVerification}) {
+            jdbcTemplate.update("update user_account set creation_time = creation_time - interval '30 days'"
+                    + " where id = ?", userAccount.getId());
+        }
+        var now = LocalDateTime.now().plusSeconds(5);
+        int deleted;
+        do {
+            deleted = userAccountRepository.deleteNeverEnabled(now.minusDays(7), now, 100);
+        } while (deleted == 100);
+        assertThat(userAccountRepository.findById(neverEnabled.getId())).isEmpty();
+        assertThat(userAccountRepository.findById(expiredVerification.getId())).isEmpty();
+        assertThat(userAccountRepository.findById(enabled.getId())).isPresent();
+        assertThat(userAccountRepository.findById(pendingVerification.getId())).isPresent();
+        assertThat(userAccountRepository.findById(recent.getId())).isPresent();
+    }
+
+    private EmailVerificationToken saveEmailVerificationToken(LocalDateTime expiresAt) {
+        return saveEmailVerificationToken(saveUserAccount(false), expiresAt);
+    }
+
+    private EmailVerificationToken saveEmailVerificationToken(UserAccount userAccount, LocalDateTime expiresAt) {
+        var emailVerificationToken = new EmailVerificationToken();
+        emailVerificationToken.setToken(EmailVerificationToken.newToken());
+        emailVerificationToken.setExpiresAt(expiresAt);
+        emailVerificationToken.setUserAccount(userAccount);
+        return emailVerificationTokenRepository.save(emailVerificationToken);
+    }
+
+    private UserAccount saveUserAccount(boolean enabled) {
+        var userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("ffffff3Q");
+        userAccount.setFirstName("user2");
+        userAccount.setLastName("user2");
+        userAccount.setGender(Gender.MALE);
+        userAccount.setBirthDay(LocalDate.of(2010, 10, 10));
+        userAccount.setEmail("user2@user2.com");
+        userAccount.setEnabled(enabled);
+        return userAccountRepository.save(userAccount);
+    }
+}
@@ -0,0 +1,176 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.*;
+import com.ahmedsameha1.todo.repository.TodoRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.ahmedsameha1.todo.Constants.TODO_DESCRIPTION_PREVIEW_LENGTH;
+import static com.ahmedsameha1.todo.domain_model.TodoOperationResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TodoBulkOperationsTest extends ProductionDatabaseBaseTest {
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID userAccountId;
+    private TodoSummary first;
+    private TodoSummary second;
+
+    @BeforeEach
+    public void before() {
+        var userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("ffffff3Q");
+        userAccount.setFirstName("user2");
+        userAccount.setLastName("user2");
+        userAccount.setGender(Gender.MALE);
+        userAccount.setBirthDay(LocalDate.of(2010, 10, 10));
+        userAccount.setEmail("user2@user2.com");
+        userAccountId = userAccountRepository.save(userAccount).getId();
+        first = todoService.createTodo(userAccountId, todoRequest("todo 1"));
+        second = todoService.createTodo(userAccountId, todoRequest("todo 2"));
+    }
+
+    @Test
+    @DisplayName("Test that the operations are applied in one transaction with a result for each one")
+    public void test1() {
+        var results = todoService.applyTodoOperations(userAccountId, List.of(
+                operation(TodoOperation.Type.CREATE, null, null, "todo 3"),
+                operation(TodoOperation.Type.UPDATE, first.getId(), first.getVersion(), "todo 1 updated"),
+                operation(TodoOperation.Type.DELETE, second.getId(), second.getVersion(), null),
+                operation(TodoOperation.Type.UPDATE, UUID.randomUUID(), 0L, "todo 4")));
+        assertThat(results).extracting(TodoOperationResult::getStatus)
+                .containsExactly(CREATED, UPDATED, DELETED, NOT_FOUND);
+        assertThat(results.get(1).getVersion()).isEqualTo(first.getVersion() + 1);
+        assertThat(todoRepository.findById(second.getId())).isEmpty();
+        assertThat(readDescription(results.get(0).getId())).isEqualTo("todo 3");
+        assertThat(readDescription(first.getId())).isEqualTo("todo 1 updated");
+        assertThat(todoService.getTodo(userAccountId, first.getId()).getDescriptionPreview())
+                .isEqualTo("todo 1 updated");
+    }
+
+    @Test
+    @DisplayName("Test that an operation with a stale version is a conflict and the others are applied")
+    public void test2() {
+        todoService.updateTodo(userAccountId, first.getId(), todoRequest("todo 1 updated"));
+        var results = todoService.applyTodoOperations(userAccountId, List.of(
+                operation(TodoOperation.Type.UPDATE, first.getId(), first.getVersion(), "todo 1 stale"),
+                operation(TodoOperation.Type.UPDATE, second.getId(), second.getVersion(), "todo 2 updated")));
+        assertThat(results).extracting(TodoOperationResult::getStatus).containsExactly(CONFLICT, UPDATED);
+        assertThat(readDescription(first.getId())).isEqualTo("todo 1 updated");
+        assertThat(readDescription(second.getId())).isEqualTo("todo 2 updated");
+    }
+
+    @Test
+    @DisplayName("Test that changing only the description after its preview changes the version")
+    public void test3() {
+        var head = "a".repeat(TODO_DESCRIPTION_PREVIEW_LENGTH);
+        var updated = todoService.updateTodo(userAccountId, first.getId(), todoRequest(head + "b"));
+        assertThat(updated.getVersion()).isEqualTo(first.getVersion() + 1);
+        var results = todoService.applyTodoOperations(userAccountId, List.of(
+                operation(TodoOperation.Type.UPDATE, first.getId(), updated.getVersion(), head + "c")));
+        assertThat(results).extracting(TodoOperationResult::getStatus).containsExactly(UPDATED);
+        assertThat(results.get(0).getVersion()).isEqualTo(updated.getVersion() + 1);
+        results = todoService.applyTodoOperations(userAccountId, List.of(
+                operation(TodoOperation.Type.UPDATE, first.getId(), updated.getVersion(), head + "d")));
+        assertThat(results).extracting(TodoOperationResult::getStatus).containsExactly(CONFLICT);
+        assertThat(readDescription(first.getId())).isEqualTo(head + "c");
+    }
+
+    @Test
+    @DisplayName("Test that concurrent replacements of a description wait for each other instead of failing")
+    public void test4() throws Exception {
+        var reading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var firstReplacement = CompletableFuture.supplyAsync(() -> replaceDescription(new FilterReader(
+                new StringReader("todo 1 first")) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                reading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(buffer, offset, length);
+            }
+        }));
+        // The first replacement deleted the chunks and holds the todo
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+        var secondReplacement = CompletableFuture
+                .supplyAsync(() -> replaceDescription(new StringReader("todo 1 second")));
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject("select count(*) from pg_stat_activity where wait_event_type = 'Lock'",
+                Integer.class) == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        firstReplacement.get(10, TimeUnit.SECONDS);
+        secondReplacement.get(10, TimeUnit.SECONDS);
+        assertThat(readDescription(first.getId())).isEqualTo("todo 1 second");
+    }
+
+    private TodoSummary replaceDescription(Reader reader) {
+        try {
+            return todoService.replaceDescription(userAccountId, first.getId(), reader);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private String readDescription(UUID id) {
+        var descriptionId = todoRepository.findDescriptionIdByIdAndUserAccountId(id, userAccountId).get();
+        return transactionTemplate.execute(status -> {
+            try (var chunks = todoRepository.streamDescriptionChunks(descriptionId)) {
+                return chunks.collect(Collectors.joining());
+            }
+        });
+    }
+
+    private static TodoRequest todoRequest(String description) {
+        var todoRequest = new TodoRequest();
+        todoRequest.setDescription(description);
+        todoRequest.setTargetDate(LocalDate.now().plusDays(1));
+        return todoRequest;
+    }
+
+    private static TodoOperation operation(TodoOperation.Type type, UUID id, Long version, String description) {
+        var operation = new TodoOperation();
+        operation.setType(type);
+        operation.setId(id);
+        operation.setVersion(version);
+        operation.setTodo(description == null ? null : todoRequest(description));
+        return operation;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.Gender;
+import com.ahmedsameha1.todo.domain_model.ProductionDatabaseBaseTest;
+import com.ahmedsameha1.todo.domain_model.TodoRequest;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The used heap is sampled after a full collection every SAMPLE_INTERVAL characters while the description
+// is generated on upload and consumed on download, neither side keeps what it has seen
+public class TodoDescriptionStreamingTest extends ProductionDatabaseBaseTest {
+    private static final int DESCRIPTION_LENGTH = 100 * 1024 * 1024;
+    private static final int SAMPLE_INTERVAL = 10 * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH = 32 * 1024 * 1024;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    private UUID userAccountId;
+    private UUID id;
+    private long maxUsedHeap;
+
+    @BeforeEach
+    public void before() {
+        var userAccount = new UserAccount();
+        userAccount.setUsername(UUID.randomUUID().toString());
+        userAccount.setPassword("ffffff3Q");
+        userAccount.setFirstName("user2");
+        userAccount.setLastName("user2");
+        userAccount.setGender(Gender.MALE);
+        userAccount.setBirthDay(LocalDate.of(2010, 10, 10));
+        userAccount.setEmail("user2@user2.com");
+        userAccountId = userAccountRepository.save(userAccount).getId();
+        var todoRequest = new TodoRequest();
+        todoRequest.setDescription("Pay internet service subscription");
+        todoRequest.setTargetDate(LocalDate.now().plusDays(1));
+        id = todoService.createTodo(userAccountId, todoRequest).getId();
+    }
+
+    @Test
+    @DisplayName("Test that the heap stays flat while a 100 MB description is uploaded and downloaded")
+    public void test1() throws IOException {
+        var baseline = usedHeap();
+        maxUsedHeap = baseline;
+        var todoSummary = todoService.replaceDescription(userAccountId, id, new GeneratedReader());
+        assertThat(todoSummary.getDescriptionPreview()).startsWith("abcdefghijklmnopqrstuvwxyz");
+        var verifyingWriter = new VerifyingWriter();
+        var httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getWriter()).thenReturn(new PrintWriter(verifyingWriter));
+        todoService.writeDescription(userAccountId, id, httpServletResponse);
+        assertThat(verifyingWriter.position).isEqualTo(DESCRIPTION_LENGTH);
+        assertThat(verifyingWriter.mismatch).isFalse();
+        assertThat(maxUsedHeap - baseline).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    private void sample(long position) {
+        if (position % SAMPLE_INTERVAL == 0) {
+            maxUsedHeap = Math.max(maxUsedHeap, usedHeap());
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static char charAt(long position) {
+        return (char) ('a' + position % 26);
+    }
+
+    private class GeneratedReader extends Reader {
+        private long position = 0;
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == DESCRIPTION_LENGTH) {
+                return -1;
+            }
+            var count = (int) Math.min(length, DESCRIPTION_LENGTH - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = charAt(position++);
+                sample(position);
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private class VerifyingWriter extends Writer {
+        private long position = 0;
+        private boolean mismatch = false;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                mismatch |= buffer[offset + i] != charAt(position++);
+                sample(position);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
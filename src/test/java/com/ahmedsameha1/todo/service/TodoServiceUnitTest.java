@@ -0,0 +1,250 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.domain_model.Todo;
+import com.ahmedsameha1.todo.domain_model.TodoOperation;
+import com.ahmedsameha1.todo.domain_model.TodoOperationResult;
+import com.ahmedsameha1.todo.domain_model.TodoRequest;
+import com.ahmedsameha1.todo.domain_model.UserAccount;
+import com.ahmedsameha1.todo.exception.InvalidTodoDescriptionException;
+import com.ahmedsameha1.todo.exception.TodoNotFoundException;
+import com.ahmedsameha1.todo.repository.TodoRepository;
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.ahmedsameha1.todo.Constants.*;
+import static com.ahmedsameha1.todo.domain_model.TodoOperationResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TodoServiceUnitTest {
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    @InjectMocks
+    private TodoService todoService = new TodoServiceImpl();
+
+    private final UUID userAccountId = UUID.randomUUID();
+    private final UUID id = UUID.randomUUID();
+    private final UUID descriptionId = UUID.randomUUID();
+    private TodoRequest todoRequest;
+
+    @BeforeEach
+    public void before() {
+        todoRequest = new TodoRequest();
+        todoRequest.setDescription("Pay internet service subscription");
+        todoRequest.setTargetDate(LocalDate.now().plusDays(1));
+    }
+
+    @Nested
+    @DisplayName("CreateTodo tests")
+    class CreateTodo {
+        @Test
+        @DisplayName("Test that the todo is saved for a reference of the UserAccount")
+        public void test1() {
+            var userAccount = new UserAccount();
+            when(userAccountRepository.getOne(userAccountId)).thenReturn(userAccount);
+            when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            var todoSummary = todoService.createTodo(userAccountId, todoRequest);
+            assertThat(todoSummary.getDescriptionPreview()).isEqualTo(todoRequest.getDescription());
+            assertThat(todoSummary.getTargetDate()).isEqualTo(todoRequest.getTargetDate());
+            verify(todoRepository).save(argThat(todo -> todo.getUserAccount() == userAccount));
+            verify(userAccountRepository, never()).findById(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("GetTodos tests")
+    class GetTodos {
+        @Test
+        @DisplayName("Test that the first page is requested when there is no cursor")
+        public void test1() {
+            when(todoRepository.findFirstPage(userAccountId, PageRequest.of(0, 20))).thenReturn(List.of());
+            assertThat(todoService.getTodos(userAccountId, null, null, null, 20)).isEmpty();
+            verify(todoRepository).findFirstPage(userAccountId, PageRequest.of(0, 20));
+        }
+
+        @Test
+        @DisplayName("Test that the page after the cursor is requested")
+        public void test2() {
+            var afterTargetDate = LocalDate.now().plusDays(1);
+            todoService.getTodos(userAccountId, false, afterTargetDate, id, 20);
+            verify(todoRepository).findPageAfterByDone(userAccountId, false, afterTargetDate, id,
+                    PageRequest.of(0, 20));
+        }
+
+        @Test
+        @DisplayName("Test that the page size is bounded")
+        public void test3() {
+            todoService.getTodos(userAccountId, null, null, null, 100000);
+            verify(todoRepository).findFirstPage(userAccountId, PageRequest.of(0, TODOS_PAGE_MAX_SIZE));
+        }
+    }
+
+    @Nested
+    @DisplayName("UpdateTodo and DeleteTodo tests")
+    class UpdateAndDeleteTodo {
+        @Test
+        @DisplayName("Should fail because there is no todo with this id for this UserAccount")
+        public void test1() {
+            when(todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId)).thenReturn(Optional.empty());
+            assertThatThrownBy(() -> todoService.updateTodo(userAccountId, id, todoRequest))
+                    .isInstanceOf(TodoNotFoundException.class);
+            verify(todoRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Test that the description is replaced without loading the old one")
+        public void test2() {
+            var todo = spy(new Todo());
+            ReflectionTestUtils.setField(todo, "descriptionId", descriptionId);
+            when(todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId)).thenReturn(Optional.of(todo));
+            when(todoRepository.saveAndFlush(todo)).thenReturn(todo);
+            var todoSummary = todoService.updateTodo(userAccountId, id, todoRequest);
+            assertThat(todoSummary.getDescriptionPreview()).isEqualTo(todoRequest.getDescription());
+            verify(todoRepository).deleteDescriptionChunks(descriptionId);
+            verify(todoRepository).insertDescriptionChunk(descriptionId, 0, todoRequest.getDescription());
+            verify(todo, never()).getDescription();
+            verify(todo, never()).setDescription(any());
+            verify(todoRepository, never()).findDescriptionIdByIdAndUserAccountId(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should fail because there is no todo to delete")
+        public void test3() {
+            when(todoRepository.deleteByIdAndUserAccountId(id, userAccountId)).thenReturn(0);
+            assertThatThrownBy(() -> todoService.deleteTodo(userAccountId, id))
+                    .isInstanceOf(TodoNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("ReplaceDescription tests")
+    class ReplaceDescription {
+        private Todo todo;
+
+        @BeforeEach
+        public void before() {
+            todo = new Todo();
+            ReflectionTestUtils.setField(todo, "descriptionId", descriptionId);
+            lenient().when(todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId))
+                    .thenReturn(Optional.of(todo));
+            lenient().when(todoRepository.saveAndFlush(todo)).thenReturn(todo);
+        }
+
+        @Test
+        @DisplayName("Test that the description is written in chunks that don't split a surrogate pair")
+        public void test1() throws IOException {
+            var first = "a".repeat(TODO_DESCRIPTION_CHUNK_LENGTH - 1);
+            var description = first + "\uD83D\uDE00" + "b".repeat(10);
+            var todoSummary = todoService.replaceDescription(userAccountId, id, new StringReader(description));
+            assertThat(todoSummary.getDescriptionPreview()).isEqualTo("a".repeat(TODO_DESCRIPTION_PREVIEW_LENGTH));
+            var inOrder = inOrder(todoRepository);
+            inOrder.verify(todoRepository).deleteDescriptionChunks(descriptionId);
+            inOrder.verify(todoRepository).insertDescriptionChunk(descriptionId, 0, first);
+            inOrder.verify(todoRepository).insertDescriptionChunk(descriptionId, 1, "\uD83D\uDE00" + "b".repeat(10));
+        }
+
+        @Test
+        @DisplayName("Should fail because the description is empty or blank")
+        public void test2() {
+            assertThatThrownBy(() -> todoService.replaceDescription(userAccountId, id, new StringReader("")))
+                    .isInstanceOf(InvalidTodoDescriptionException.class);
+            assertThatThrownBy(() -> todoService.replaceDescription(userAccountId, id,
+                    new StringReader(" \t\n".repeat(TODO_DESCRIPTION_CHUNK_LENGTH))))
+                    .isInstanceOf(InvalidTodoDescriptionException.class);
+            verify(todoRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because there is no todo with this id for this UserAccount")
+        public void test3() {
+            when(todoRepository.findForUpdateByIdAndUserAccountId(id, userAccountId)).thenReturn(Optional.empty());
+            assertThatThrownBy(() -> todoService.replaceDescription(userAccountId, id, new StringReader("todo")))
+                    .isInstanceOf(TodoNotFoundException.class);
+            verify(todoRepository, never()).deleteDescriptionChunks(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("ApplyTodoOperations tests")
+    class ApplyTodoOperations {
+        private Todo todo;
+
+        @BeforeEach
+        public void before() {
+            todo = new Todo();
+            ReflectionTestUtils.setField(todo, "id", id);
+            ReflectionTestUtils.setField(todo, "descriptionId", descriptionId);
+            lenient().when(todoRepository.findAllByIdInAndUserAccountId(any(), eq(userAccountId)))
+                    .thenReturn(List.of(todo));
+        }
+
+        private TodoOperation operation(TodoOperation.Type type, UUID id, Long version) {
+            var operation = new TodoOperation();
+            operation.setType(type);
+            operation.setId(id);
+            operation.setVersion(version);
+            operation.setTodo(type == TodoOperation.Type.DELETE ? null : todoRequest);
+            return operation;
+        }
+
+        @Test
+        @DisplayName("Test that the operations are applied with one flush and reported in order")
+        public void test1() {
+            var userAccount = new UserAccount();
+            when(userAccountRepository.getOne(userAccountId)).thenReturn(userAccount);
+            when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            var missingId = UUID.randomUUID();
+            var results = todoService.applyTodoOperations(userAccountId, List.of(
+                    operation(TodoOperation.Type.CREATE, null, null),
+                    operation(TodoOperation.Type.UPDATE, id, 0L),
+                    operation(TodoOperation.Type.DELETE, missingId, 0L)));
+            assertThat(results).extracting(TodoOperationResult::getStatus)
+                    .containsExactly(CREATED, UPDATED, NOT_FOUND);
+            assertThat(results.get(2).getId()).isEqualTo(missingId);
+            assertThat(todo.getDescriptionPreview()).isEqualTo(todoRequest.getDescription());
+            var inOrder = inOrder(todoRepository);
+            inOrder.verify(todoRepository).flush();
+            inOrder.verify(todoRepository).replaceDescriptions(Map.of(descriptionId, todoRequest.getDescription()));
+            verify(todoRepository, never()).deleteDescriptions(any());
+        }
+
+        @Test
+        @DisplayName("Test that a stale version or a second operation on the same todo is a conflict")
+        public void test2() {
+            var results = todoService.applyTodoOperations(userAccountId, List.of(
+                    operation(TodoOperation.Type.UPDATE, id, 1L),
+                    operation(TodoOperation.Type.DELETE, id, 0L),
+                    operation(TodoOperation.Type.UPDATE, id, 0L)));
+            assertThat(results).extracting(TodoOperationResult::getStatus)
+                    .containsExactly(CONFLICT, DELETED, CONFLICT);
+            verify(todoRepository).delete(todo);
+            verify(todoRepository).deleteDescriptions(List.of(descriptionId));
+            verify(todoRepository).replaceDescriptions(Map.of());
+        }
+    }
+}
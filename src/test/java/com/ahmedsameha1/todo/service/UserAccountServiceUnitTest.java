@@ -1,25 +1,61 @@
 package com.ahmedsameha1.todo.service;
 
+import com.ahmedsameha1.todo.domain_model.EmailVerificationToken;
+import com.ahmedsameha1.todo.domain_model.PasswordResetToken;
 import com.ahmedsameha1.todo.domain_model.UserAccount;
 import com.ahmedsameha1.todo.email_verification.NeedEmailVerificationToken;
+import com.ahmedsameha1.todo.exception.BadEmailVerificationTokenException;
+import com.ahmedsameha1.todo.exception.BadPasswordResetTokenException;
+import com.ahmedsameha1.todo.exception.ExpiredEmailVerificationTokenException;
+import com.ahmedsameha1.todo.exception.ExpiredPasswordResetTokenException;
 import com.ahmedsameha1.todo.exception.UserExistsException;
+import com.ahmedsameha1.todo.mail.MailDispatcher;
+import com.ahmedsameha1.todo.repository.EmailVerificationOutboxRepository;
 import com.ahmedsameha1.todo.repository.EmailVerificationTokenRepository;
+import com.ahmedsameha1.todo.repository.PasswordResetTokenRepository;
 import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import com.ahmedsameha1.todo.security.ClientAddressResolver;
+import com.ahmedsameha1.todo.security.PrincipalCache;
+import com.ahmedsameha1.todo.security.SignInRequest;
+import com.ahmedsameha1.todo.security.PasswordResetThrottle;
+import com.ahmedsameha1.todo.security.SignInThrottle;
+import com.ahmedsameha1.todo.security.TokenVersionRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,17 +65,50 @@ public class UserAccountServiceUnitTest {
     private UserAccountRepository userAccountRepository;
 
     @Mock
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Mock
     private EmailVerificationTokenRepository emailVerificationTokenRepository;
 
+    @Mock
+    private EmailVerificationOutboxRepository emailVerificationOutboxRepository;
+
     @Mock
     private AuthenticationManager authenticationManager;
 
     @Mock
     private ApplicationEventPublisher applicationEventPublisher;
 
+    @Mock
+    private UsernameBloomFilter usernameBloomFilter;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private SignInThrottle signInThrottle;
+
+    @Mock
+    private PasswordResetThrottle passwordResetThrottle;
+
+    @Mock
+    private ClientAddressResolver clientAddressResolver;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private MailDispatcher mailDispatcher;
+
+    @Mock
+    private MessageSource messageSource;
+
     @Mock
     private UserAccount userAccount;
 
@@ -52,13 +121,15 @@ public class UserAccountServiceUnitTest {
         @Test
         @DisplayName("Should fail because there is another UserAccount with the same username")
         public void test1() {
-            when(userAccount.getUsername()).thenReturn("ffffff");
-            when(userAccountRepository.findByUsername(anyString())).thenReturn(userAccount);
+            when(userAccount.getPassword()).thenReturn("ffff");
+            when(passwordEncoder.encode(anyString())).thenReturn("ffff");
+            when(userAccountRepository.saveAndFlush(userAccount)).thenThrow(new DataIntegrityViolationException("",
+                    new ConstraintViolationException("", null, "user_account_username_key")));
             assertThatThrownBy(() -> userAccountService
             .registerUserAccount(userAccount, new MockHttpServletRequest()))
                     .isInstanceOf(UserExistsException.class);
-            verify(userAccount).getUsername();
-            verify(userAccountRepository).findByUsername(anyString());
+            verify(userAccountRepository).saveAndFlush(userAccount);
+            verify(applicationEventPublisher, never()).publishEvent(any());
         }
 
         @Test
@@ -70,29 +141,289 @@ public class UserAccountServiceUnitTest {
         }
 
         @Test
-        @DisplayName("Should fail because UserAccount has null username")
+        @DisplayName("Should fail with the original exception because another constraint is violated")
         public void test3() {
-            when(userAccountRepository.findByUsername(isNull())).thenThrow(IllegalArgumentException.class);
+            when(userAccount.getPassword()).thenReturn("ffff");
+            when(passwordEncoder.encode(anyString())).thenReturn("ffff");
+            var exception = new DataIntegrityViolationException("",
+                    new ConstraintViolationException("", null, "user_account_email_check"));
+            when(userAccountRepository.saveAndFlush(userAccount)).thenThrow(exception);
             assertThatThrownBy(() -> userAccountService
                     .registerUserAccount(userAccount, new MockHttpServletRequest()))
-                    .isInstanceOf(IllegalArgumentException.class);
-            verify(userAccount).getUsername();
-            verify(userAccountRepository).findByUsername(isNull());
+                    .isSameAs(exception);
         }
 
         @Test
         @DisplayName("Test calling the needed methods")
         public void test5() {
-            when(userAccount.getUsername()).thenReturn("fff");
-            when(userAccountRepository.findByUsername(anyString())).thenReturn(null);
-            when(userAccountRepository.save(userAccount)).thenReturn(userAccount);
+            when(userAccountRepository.saveAndFlush(userAccount)).thenReturn(userAccount);
             when(userAccount.getPassword()).thenReturn("ffff");
-            when(bCryptPasswordEncoder.encode(anyString())).thenReturn("ffff");
+            when(passwordEncoder.encode(anyString())).thenReturn("ffff");
             var returnedUserAccount = userAccountService.registerUserAccount(userAccount, new MockHttpServletRequest());
             assertThat(returnedUserAccount).isEqualTo(userAccount);
             verify(userAccount).setPassword(anyString());
-            verify(userAccountRepository).save(userAccount);
+            verify(userAccountRepository).saveAndFlush(userAccount);
+            verify(usernameBloomFilter).put(userAccount.getUsername());
+            verify(applicationEventPublisher).publishEvent(any(NeedEmailVerificationToken.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("HandleUserAccountEnablingProcess tests")
+    class HandleUserAccountEnablingProcess {
+        @Test
+        @DisplayName("Test that enabling with a valid token only evicts the cached principal afterwards")
+        public void test1() {
+            var token = EmailVerificationToken.newToken();
+            when(userAccountRepository.enableByEmailVerificationToken(aryEq(EmailVerificationToken.hash(token)),
+                    any(LocalDateTime.class))).thenReturn(Optional.of("user1"));
+            userAccountService.handleUserAccountEnablingProcess(token, new MockHttpServletRequest());
+            verify(principalCache).removeUserFromCache("user1");
+            verify(emailVerificationTokenRepository, never()).findByTokenHash(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because the token is unknown")
+        public void test2() {
+            when(userAccountRepository.enableByEmailVerificationToken(any(), any())).thenReturn(Optional.empty());
+            assertThatThrownBy(() -> userAccountService
+                    .handleUserAccountEnablingProcess(EmailVerificationToken.newToken(), new MockHttpServletRequest()))
+                    .isInstanceOf(BadEmailVerificationTokenException.class);
+            verify(applicationEventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because the token is expired, and a new email is requested")
+        public void test3() {
+            var token = EmailVerificationToken.newToken();
+            var emailVerificationToken = new EmailVerificationToken();
+            emailVerificationToken.setToken(token);
+            emailVerificationToken.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            when(userAccountRepository.enableByEmailVerificationToken(any(), any())).thenReturn(Optional.empty());
+            when(emailVerificationTokenRepository.findByTokenHash(aryEq(EmailVerificationToken.hash(token))))
+                    .thenReturn(emailVerificationToken);
+            assertThatThrownBy(() -> userAccountService
+                    .handleUserAccountEnablingProcess(token, new MockHttpServletRequest()))
+                    .isInstanceOf(ExpiredEmailVerificationTokenException.class);
+            verify(applicationEventPublisher).publishEvent(any(NeedEmailVerificationToken.class));
+            verify(principalCache, never()).removeUserFromCache(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Authenticate tests")
+    class Authenticate {
+        @Test
+        @DisplayName("Should fail as disabled because the token of the UserAccount isn't created yet")
+        public void test1() {
+            var signInRequest = new SignInRequest();
+            signInRequest.setUsername("user1");
+            signInRequest.setPassword("ffffff3Q");
+            when(authenticationManager.authenticate(any())).thenThrow(new DisabledException("disabled"));
+            when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+            when(emailVerificationTokenRepository.findByUserAccount(userAccount)).thenReturn(null);
+            when(emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0)).thenReturn(true);
+            assertThatThrownBy(() -> userAccountService.authenticate(signInRequest, new MockHttpServletRequest()))
+                    .isInstanceOf(DisabledException.class);
+            verify(applicationEventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because the token was deleted after it expired, and a new email is requested")
+        public void test2() {
+            var signInRequest = new SignInRequest();
+            signInRequest.setUsername("user1");
+            signInRequest.setPassword("ffffff3Q");
+            when(authenticationManager.authenticate(any())).thenThrow(new DisabledException("disabled"));
+            when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+            when(emailVerificationTokenRepository.findByUserAccount(userAccount)).thenReturn(null);
+            when(emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0)).thenReturn(false);
+            assertThatThrownBy(() -> userAccountService.authenticate(signInRequest, new MockHttpServletRequest()))
+                    .isInstanceOf(ExpiredEmailVerificationTokenException.class);
             verify(applicationEventPublisher).publishEvent(any(NeedEmailVerificationToken.class));
         }
+
+        @Test
+        @DisplayName("Test that repeated sign ins with an expired token queue only one new email")
+        public void test3() {
+            var signInRequest = new SignInRequest();
+            signInRequest.setUsername("user1");
+            signInRequest.setPassword("ffffff3Q");
+            var emailVerificationToken = new EmailVerificationToken();
+            emailVerificationToken.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            when(authenticationManager.authenticate(any())).thenThrow(new DisabledException("disabled"));
+            when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+            when(emailVerificationTokenRepository.findByUserAccount(userAccount)).thenReturn(emailVerificationToken);
+            when(emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0))
+                    .thenReturn(false, true, true);
+            for (int i = 0; i < 3; i++) {
+                assertThatThrownBy(() -> userAccountService.authenticate(signInRequest, new MockHttpServletRequest()))
+                        .isInstanceOf(ExpiredEmailVerificationTokenException.class);
+            }
+            verify(applicationEventPublisher, times(1)).publishEvent(any(NeedEmailVerificationToken.class));
+        }
+
+        @Test
+        @DisplayName("Test that a sign in that loses the race to queue the email still fails as expired")
+        public void test4() {
+            var signInRequest = new SignInRequest();
+            signInRequest.setUsername("user1");
+            signInRequest.setPassword("ffffff3Q");
+            when(authenticationManager.authenticate(any())).thenThrow(new DisabledException("disabled"));
+            when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+            when(emailVerificationTokenRepository.findByUserAccount(userAccount)).thenReturn(null);
+            when(emailVerificationOutboxRepository.existsByUserAccountAndAttempts(userAccount, 0)).thenReturn(false);
+            doThrow(new DataIntegrityViolationException("unclaimed entry exists"))
+                    .when(applicationEventPublisher).publishEvent(any(NeedEmailVerificationToken.class));
+            assertThatThrownBy(() -> userAccountService.authenticate(signInRequest, new MockHttpServletRequest()))
+                    .isInstanceOf(ExpiredEmailVerificationTokenException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("RequestPasswordReset tests")
+    class RequestPasswordReset {
+        @Test
+        @DisplayName("Test that nothing is sent for an unknown username")
+        public void test1() {
+            when(passwordResetThrottle.tryAcquire(eq("user1"), any())).thenReturn(true);
+            userAccountService.requestPasswordReset("user1", new MockHttpServletRequest());
+            verify(passwordResetTokenRepository, never()).save(any());
+            verify(mailDispatcher, never()).dispatch(any());
+        }
+
+        @Test
+        @DisplayName("Test that a token is saved and its link is emailed")
+        public void test2() {
+            when(passwordResetThrottle.tryAcquire(eq("user1"), any())).thenReturn(true);
+            when(userAccountRepository.findByUsername("user1")).thenReturn(userAccount);
+            when(userAccount.isEnabled()).thenReturn(true);
+            when(userAccount.getEmail()).thenReturn("user1@user1.com");
+            when(passwordResetTokenRepository.save(any(PasswordResetToken.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(messageSource.getMessage(eq("passwordResetSubject"), isNull(), any(Locale.class)))
+                    .thenReturn("Subject");
+            when(messageSource.getMessage(eq("passwordResetMessage"), isNull(), any(Locale.class)))
+                    .thenReturn("Reset");
+            when(mailDispatcher.dispatch(any())).thenReturn(true);
+            userAccountService.requestPasswordReset("user1", new MockHttpServletRequest());
+            var passwordResetToken = ArgumentCaptor.forClass(PasswordResetToken.class);
+            verify(passwordResetTokenRepository).save(passwordResetToken.capture());
+            assertThat(passwordResetToken.getValue().getUserAccount()).isEqualTo(userAccount);
+            assertThat(passwordResetToken.getValue().getExpiresAt()).isAfter(LocalDateTime.now());
+            verify(mailDispatcher).dispatch(argThat(email -> email.getTo()[0].equals("user1@user1.com")
+                    && email.getSubject().equals("Subject")
+                    && email.getText().startsWith("Reset")
+                    && email.getText().endsWith("?token=" + passwordResetToken.getValue().getToken())));
+        }
+
+        @Test
+        @DisplayName("Test that a throttled request is dropped before the UserAccount is looked up")
+        public void test3() {
+            var request = new MockHttpServletRequest();
+            when(clientAddressResolver.resolve(request)).thenReturn("10.0.0.1");
+            when(passwordResetThrottle.tryAcquire("user1", "10.0.0.1")).thenReturn(false);
+            userAccountService.requestPasswordReset("user1", request);
+            verify(userAccountRepository, never()).findByUsername(any());
+            verify(passwordResetTokenRepository, never()).save(any());
+            verify(mailDispatcher, never()).dispatch(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("ResetPassword tests")
+    class ResetPassword {
+        private final UUID token = UUID.randomUUID();
+
+        @BeforeEach
+        public void before() {
+            lenient().doAnswer(invocation -> {
+                invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because the token is unknown")
+        public void test1() {
+            assertThatThrownBy(() -> userAccountService.resetPassword(token, "ffffff3Q"))
+                    .isInstanceOf(BadPasswordResetTokenException.class);
+            verify(passwordEncoder, never()).encode(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because the token is expired")
+        public void test2() {
+            when(passwordResetTokenRepository.findByToken(token))
+                    .thenReturn(passwordResetToken(LocalDateTime.now().minusMinutes(1)));
+            assertThatThrownBy(() -> userAccountService.resetPassword(token, "ffffff3Q"))
+                    .isInstanceOf(ExpiredPasswordResetTokenException.class);
+            verify(passwordResetTokenRepository, never()).deleteByTokenValue(any());
+        }
+
+        @Test
+        @DisplayName("Should fail because another reset used the token first")
+        public void test3() {
+            when(passwordResetTokenRepository.findByToken(token))
+                    .thenReturn(passwordResetToken(LocalDateTime.now().plusMinutes(1)));
+            when(passwordEncoder.encode("ffffff3Q")).thenReturn("hash");
+            when(passwordResetTokenRepository.deleteByTokenValue(token)).thenReturn(0);
+            assertThatThrownBy(() -> userAccountService.resetPassword(token, "ffffff3Q"))
+                    .isInstanceOf(BadPasswordResetTokenException.class);
+            verify(userAccountRepository, never()).updatePassword(any(), any());
+            verify(tokenVersionRegistry, never()).revokeTokens(any());
+        }
+
+        @Test
+        @DisplayName("Test that the new password is saved and the tokens of the UserAccount are revoked")
+        public void test4() {
+            var id = UUID.randomUUID();
+            when(userAccount.getId()).thenReturn(id);
+            when(userAccount.getUsername()).thenReturn("user1");
+            when(passwordResetTokenRepository.findByToken(token))
+                    .thenReturn(passwordResetToken(LocalDateTime.now().plusMinutes(1)));
+            when(passwordEncoder.encode("ffffff3Q")).thenReturn("hash");
+            when(passwordResetTokenRepository.deleteByTokenValue(token)).thenReturn(1);
+            userAccountService.resetPassword(token, "ffffff3Q");
+            var inOrder = inOrder(transactionTemplate, passwordResetTokenRepository, userAccountRepository,
+                    tokenVersionRegistry);
+            inOrder.verify(transactionTemplate).executeWithoutResult(any());
+            inOrder.verify(passwordResetTokenRepository).deleteByTokenValue(token);
+            inOrder.verify(userAccountRepository).updatePassword(id, "hash");
+            inOrder.verify(tokenVersionRegistry).revokeTokens(userAccount);
+            verify(signInThrottle).recordSuccess("user1");
+        }
+
+        private PasswordResetToken passwordResetToken(LocalDateTime expiresAt) {
+            var passwordResetToken = new PasswordResetToken();
+            passwordResetToken.setToken(token);
+            passwordResetToken.setExpiresAt(expiresAt);
+            passwordResetToken.setUserAccount(userAccount);
+            return passwordResetToken;
+        }
+    }
+
+    @Nested
+    @DisplayName("IsUsernameAvailable tests")
+    class IsUsernameAvailable {
+        @Test
+        @DisplayName("Test that a username the filter rules out is available without asking the database")
+        public void test1() {
+            when(usernameBloomFilter.mightContain("user1")).thenReturn(false);
+            assertThat(userAccountService.isUsernameAvailable("user1")).isTrue();
+            verify(userAccountRepository, never()).existsByUsername(anyString());
+        }
+
+        @Test
+        @DisplayName("Test that the database decides when the filter might contain the username")
+        public void test2() {
+            when(usernameBloomFilter.mightContain(anyString())).thenReturn(true);
+            when(userAccountRepository.existsByUsername("user1")).thenReturn(true);
+            when(userAccountRepository.existsByUsername("user2")).thenReturn(false);
+            assertThat(userAccountService.isUsernameAvailable("user1")).isFalse();
+            assertThat(userAccountService.isUsernameAvailable("user2")).isTrue();
+            verify(usernameBloomFilter).recordDatabaseCheck(true);
+            verify(usernameBloomFilter).recordDatabaseCheck(false);
+        }
     }
 }
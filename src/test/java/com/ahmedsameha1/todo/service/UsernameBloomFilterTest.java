@@ -0,0 +1,88 @@
+package com.ahmedsameha1.todo.service;
+
+import com.ahmedsameha1.todo.repository.UserAccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UsernameBloomFilterTest {
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UsernameBloomFilter usernameBloomFilter;
+
+    @BeforeEach
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        usernameBloomFilter = new UsernameBloomFilter(userAccountRepository, transactionTemplate, meterRegistry,
+                10000, 0.01, true);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Test that every username is a maybe until the filter is loaded")
+    public void test1() {
+        assertThat(usernameBloomFilter.mightContain("user1")).isTrue();
+        when(userAccountRepository.streamUsernames()).thenReturn(Stream.of("user1", "user2"));
+        usernameBloomFilter.load();
+        assertThat(usernameBloomFilter.mightContain("user1")).isTrue();
+        assertThat(usernameBloomFilter.mightContain("user2")).isTrue();
+        assertThat(usernameBloomFilter.mightContain("user3")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test that a put username is always found and the false positive rate stays near the expected one")
+    public void test2() {
+        when(userAccountRepository.streamUsernames()).thenReturn(Stream.empty());
+        usernameBloomFilter.load();
+        for (int i = 0; i < 10000; i++) {
+            usernameBloomFilter.put("user" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertThat(usernameBloomFilter.mightContain("user" + i)).isTrue();
+        }
+        var falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (usernameBloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100000.0).isLessThan(0.02);
+        assertThat(usernameBloomFilter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.005));
+        assertThat(meterRegistry.get(UsernameBloomFilter.METRIC_PREFIX + ".false-positive-rate").gauge().value())
+                .isEqualTo(usernameBloomFilter.expectedFalsePositiveRate());
+        assertThat(meterRegistry.get(UsernameBloomFilter.METRIC_PREFIX + ".memory").gauge().value())
+                .isLessThan(16 * 1024);
+    }
+
+    @Test
+    @DisplayName("Test that every username stays a maybe when the application may run on more than one node")
+    public void test3() {
+        usernameBloomFilter = new UsernameBloomFilter(userAccountRepository, transactionTemplate,
+                new SimpleMeterRegistry(), 10000, 0.01, false);
+        usernameBloomFilter.load();
+        usernameBloomFilter.put("user1");
+        assertThat(usernameBloomFilter.mightContain("user2")).isTrue();
+        verifyNoInteractions(userAccountRepository, transactionTemplate);
+    }
+}
@@ -27,6 +27,7 @@ import java.util.UUID;
 
 import static com.ahmedsameha1.todo.Constants.ErrorCode.*;
 import static com.ahmedsameha1.todo.Constants.SIGN_UP_URL;
+import static com.ahmedsameha1.todo.Constants.USERNAME_AVAILABILITY_URL;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.*;
@@ -689,6 +690,21 @@ class UserAccountControllerUnitTest extends ProductionDatabaseBaseTest {
         verify(userAccountService, never()).registerUserAccount(any(), any());
     }
 
+    @Test
+    @DisplayName("Test that the availability of a username is returned without authentication")
+    public void UsernameAvailability_test1() throws Exception {
+        when(userAccountService.isUsernameAvailable("user1")).thenReturn(true);
+        when(userAccountService.isUsernameAvailable("user2")).thenReturn(false);
+        mockMvc.perform(get(USERNAME_AVAILABILITY_URL).param("username", "user1"))
+                .andExpect(matchAll(
+                        status().isOk(),
+                        jsonPath("$.available", Matchers.is(true))));
+        mockMvc.perform(get(USERNAME_AVAILABILITY_URL).param("username", "user2"))
+                .andExpect(matchAll(
+                        status().isOk(),
+                        jsonPath("$.available", Matchers.is(false))));
+    }
+
     private void callEndpoint(String json, String field) throws Exception {
         when(messageSource.getMessage(eq("error.validation"), isNotNull(), eq(Locale.getDefault()))).thenReturn(message);
         when(userAccountService.registerUserAccount(eq(userAccount), any(HttpServletRequest.class))).thenReturn(null);